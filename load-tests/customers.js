@@ -0,0 +1,54 @@
+// Load test for the customer read endpoints.
+//
+// Compares the virtual-thread and platform-thread execution modes under bursty load.
+// Run it once per mode and compare the http_reqs rate and http_req_duration percentiles:
+//
+//   PAYMENT_VIRTUAL_THREADS=true  docker compose up -d --build payment-app
+//   docker compose --profile load run --rm k6
+//   PAYMENT_VIRTUAL_THREADS=false docker compose up -d --build payment-app
+//   docker compose --profile load run --rm k6
+//
+// BASE_URL, PEAK_VUS and DURATION can be overridden through the environment.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://payment-app:8080';
+const PEAK_VUS = parseInt(__ENV.PEAK_VUS || '800', 10);
+
+export const options = {
+    scenarios: {
+        bursts: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '15s', target: PEAK_VUS / 4 },
+                { duration: '5s', target: PEAK_VUS },
+                { duration: __ENV.DURATION || '30s', target: PEAK_VUS },
+                { duration: '5s', target: PEAK_VUS / 4 },
+                { duration: '5s', target: PEAK_VUS },
+                { duration: '15s', target: 0 },
+            ],
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(90)', 'p(99)', 'max'],
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+};
+
+export function setup() {
+    const page = http.get(`${BASE_URL}/customers?size=100`);
+    const ids = page.status === 200 ? page.json().map((customer) => customer.id) : [];
+    return { ids };
+}
+
+export default function (data) {
+    if (data.ids.length > 0 && Math.random() < 0.7) {
+        const id = data.ids[Math.floor(Math.random() * data.ids.length)];
+        const res = http.get(`${BASE_URL}/customers/${id}`, { tags: { name: 'GET /customers/{id}' } });
+        check(res, { 'customer 200': (r) => r.status === 200 });
+    } else {
+        const res = http.get(`${BASE_URL}/customers?size=20`, { tags: { name: 'GET /customers' } });
+        check(res, { 'customers 200': (r) => r.status === 200 });
+    }
+}
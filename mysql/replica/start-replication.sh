@@ -0,0 +1,14 @@
+#!/bin/sh
+# Runs once, when the replica data directory is initialized: replicates mysql-db from the
+# start of its GTID history.
+mysql -uroot -p"$MYSQL_ROOT_PASSWORD" <<SQL
+CHANGE REPLICATION SOURCE TO
+    SOURCE_HOST = 'mysql-db',
+    SOURCE_PORT = 3306,
+    SOURCE_USER = 'root',
+    SOURCE_PASSWORD = '$MYSQL_ROOT_PASSWORD',
+    SOURCE_AUTO_POSITION = 1,
+    SOURCE_CONNECT_RETRY = 5,
+    GET_SOURCE_PUBLIC_KEY = 1;
+START REPLICA;
+SQL
@@ -0,0 +1,101 @@
+package com.ecommerce.payment.benchmarks;
+
+import com.ecommerce.payment.PaymentApplication;
+import com.ecommerce.payment.repository.CustomerRepository;
+import com.ecommerce.payment.services.CustomerBatchLoader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Cost of reading customer detail views through the {@link CustomerBatchLoader}.
+ *
+ * <p>The application context is started as in {@link CustomerServiceBenchmark}, with
+ * customers of two orders each. {@code multiGet} reads {@value #IDS} customers with one
+ * {@link CustomerBatchLoader#fetch} and {@code singleGets} reads them with as many
+ * {@link CustomerBatchLoader#load} calls, one per id as a client without the multi-get
+ * endpoint would. {@code concurrentLoad} runs single lookups of random customers from several
+ * threads, with and without a coalescing window.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerBatchBenchmark {
+
+    private static final int IDS = 100;
+
+    @Param("1000")
+    private int customers;
+
+    @Param({"0ms", "2ms"})
+    private String window;
+
+    private ConfigurableApplicationContext context;
+
+    private CustomerBatchLoader customerBatchLoader;
+
+    private List<UUID> ids;
+
+    @Setup
+    public void setUp() {
+        this.context = new SpringApplicationBuilder(PaymentApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_UPPER=FALSE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.properties.hibernate.globally_quoted_identifiers=true",
+                        "--spring.flyway.placeholders.long_text_type=CLOB",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.springframework.jdbc.datasource=WARN",
+                        "--logging.level.com.zaxxer.hikari=WARN",
+                        "--payment.billing.outbox.poll-interval-ms=3600000",
+                        "--payment.customers.batch.window=" + this.window);
+        CustomerRepository repository = this.context.getBean(CustomerRepository.class);
+        for (int from = 0; from < this.customers; from += 500) {
+            repository.saveAll(IntStream.range(from, Math.min(from + 500, this.customers))
+                    .mapToObj(i -> CustomerGraphs.customer(i, 2, 0, false))
+                    .toList());
+        }
+        this.ids = repository.findAll().stream().map(customer -> customer.getId()).toList();
+        this.customerBatchLoader = this.context.getBean(CustomerBatchLoader.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public Object multiGet() {
+        return this.customerBatchLoader.fetch(this.ids.subList(0, IDS));
+    }
+
+    @Benchmark
+    public void singleGets(Blackhole blackhole) {
+        for (UUID id : this.ids.subList(0, IDS)) {
+            blackhole.consume(this.customerBatchLoader.load(id));
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object concurrentLoad() {
+        return this.customerBatchLoader.load(this.ids.get(ThreadLocalRandom.current().nextInt(this.ids.size())));
+    }
+}
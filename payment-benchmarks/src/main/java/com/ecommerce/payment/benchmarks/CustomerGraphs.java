@@ -0,0 +1,73 @@
+package com.ecommerce.payment.benchmarks;
+
+import com.ecommerce.payment.model.Customer;
+import com.ecommerce.payment.model.Money;
+import com.ecommerce.payment.model.Order;
+import com.ecommerce.payment.model.Product;
+import com.ecommerce.payment.model.TimeOrderedUuidGenerator;
+import com.ecommerce.payment.services.OrderTotalCalculator;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds customer/order/product entity graphs of a given shape for the benchmarks.
+ */
+final class CustomerGraphs {
+
+    private CustomerGraphs() {
+    }
+
+    /**
+     * Builds a customer with {@code orders} orders of {@code products} products each.
+     *
+     * @param index    used to make names and emails unique
+     * @param orders   number of orders of the customer
+     * @param products number of products per order
+     * @param withIds  whether to assign identifiers (detached graph) or leave them to Hibernate
+     * @return the customer, with both sides of every association set
+     */
+    static Customer customer(int index, int orders, int products, boolean withIds) {
+        Customer customer = new Customer();
+        customer.setId(withIds ? TimeOrderedUuidGenerator.next() : null);
+        customer.setName("Customer " + index);
+        customer.setEmail("customer" + index + "@example.com");
+        customer.setPhoneNumber("+1 555 01" + String.format("%05d", index % 100_000));
+        customer.setCreatedAt(LocalDateTime.now());
+        for (int o = 0; o < orders; o++) {
+            Order order = new Order();
+            order.setId(withIds ? TimeOrderedUuidGenerator.next() : null);
+            order.setDescription("Order " + o + " of customer " + index);
+            order.setCreatedAt(LocalTime.now());
+            order.setCustomer(customer);
+            for (int p = 0; p < products; p++) {
+                Product product = new Product();
+                product.setId(withIds ? TimeOrderedUuidGenerator.next() : null);
+                product.setName("Product " + p);
+                product.setDescription("Description of product " + p);
+                product.setPrice(Money.ofMinor(150L * (p + 1)));
+                product.setStockQuantity(100);
+                product.setPercentageDiscount(p % 20);
+                product.setCreatedAt(LocalDateTime.now());
+                product.setOrder(order);
+                order.getProducts().add(product);
+            }
+            order.setAmount(OrderTotalCalculator.total(order.getProducts()));
+            customer.getOrders().add(order);
+        }
+        return customer;
+    }
+
+    /**
+     * Builds {@code count} customers with identifiers assigned.
+     */
+    static List<Customer> customers(int count, int orders, int products) {
+        List<Customer> customers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            customers.add(customer(i, orders, products, true));
+        }
+        return customers;
+    }
+}
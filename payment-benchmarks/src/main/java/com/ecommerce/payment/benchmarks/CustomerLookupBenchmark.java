@@ -0,0 +1,89 @@
+package com.ecommerce.payment.benchmarks;
+
+import com.ecommerce.payment.PaymentApplication;
+import com.ecommerce.payment.controller.CustomerController;
+import com.ecommerce.payment.error.CustomerNotFound;
+import com.ecommerce.payment.repository.CustomerRepository;
+import com.ecommerce.payment.services.CustomerIdFilter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Latency of looking up an unknown customer through
+ * {@link CustomerController#getCustomerById(String, Optional)}, with and without the
+ * {@link CustomerIdFilter}.
+ *
+ * <p>The application context is started as in {@link CustomerServiceBenchmark}, with
+ * customers without orders, and the filter is built during setup. Every invocation looks up
+ * a new random id, as a scraper would, and ends with {@link CustomerNotFound}; with the
+ * filter off each one goes through the customer service and its transaction to a primary
+ * key lookup in the database.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerLookupBenchmark {
+
+    @Param("10000")
+    private int customers;
+
+    @Param({"true", "false"})
+    private boolean filter;
+
+    private ConfigurableApplicationContext context;
+
+    private CustomerController customerController;
+
+    @Setup
+    public void setUp() {
+        this.context = new SpringApplicationBuilder(PaymentApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_UPPER=FALSE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.properties.hibernate.globally_quoted_identifiers=true",
+                        "--spring.flyway.placeholders.long_text_type=CLOB",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.springframework.jdbc.datasource=WARN",
+                        "--logging.level.com.zaxxer.hikari=WARN",
+                        "--payment.billing.outbox.poll-interval-ms=3600000",
+                        "--payment.customers.id-filter.enabled=" + this.filter);
+        CustomerRepository repository = this.context.getBean(CustomerRepository.class);
+        for (int from = 0; from < this.customers; from += 500) {
+            repository.saveAll(IntStream.range(from, Math.min(from + 500, this.customers))
+                    .mapToObj(i -> CustomerGraphs.customer(i, 0, 0, false))
+                    .toList());
+        }
+        this.context.getBean(CustomerIdFilter.class).refresh();
+        this.customerController = this.context.getBean(CustomerController.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public Object unknownCustomer() {
+        try {
+            return this.customerController.getCustomerById(UUID.randomUUID().toString(), Optional.empty());
+        } catch (CustomerNotFound error) {
+            return error;
+        }
+    }
+}
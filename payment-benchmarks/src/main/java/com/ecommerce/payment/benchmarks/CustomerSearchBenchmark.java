@@ -0,0 +1,95 @@
+package com.ecommerce.payment.benchmarks;
+
+import com.ecommerce.payment.PaymentApplication;
+import com.ecommerce.payment.dto.CustomerSummaryDTO;
+import com.ecommerce.payment.repository.CustomerRepository;
+import com.ecommerce.payment.services.CustomerSearchIndex;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Latency of a customer search answered by {@link CustomerSearchIndex}, compared with the
+ * same search as a {@code LIKE} query, which has to scan the customer table.
+ *
+ * <p>The application context is started as in {@link CustomerServiceBenchmark}, with
+ * customers without orders. The index is built during setup. The queries select a single
+ * customer by name, every customer by email domain (cut at the limit), and a single
+ * customer by formatted phone number.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerSearchBenchmark {
+
+    private static final int LIMIT = 20;
+
+    @Param("50000")
+    private int customers;
+
+    @Param({"ustomer 4242", "example.com", "555 0104242"})
+    private String query;
+
+    private ConfigurableApplicationContext context;
+
+    private CustomerSearchIndex customerSearchIndex;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup
+    public void setUp() {
+        this.context = new SpringApplicationBuilder(PaymentApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_UPPER=FALSE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.properties.hibernate.globally_quoted_identifiers=true",
+                        "--spring.flyway.placeholders.long_text_type=CLOB",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.springframework.jdbc.datasource=WARN",
+                        "--logging.level.com.zaxxer.hikari=WARN",
+                        "--payment.billing.outbox.poll-interval-ms=3600000");
+        CustomerRepository repository = this.context.getBean(CustomerRepository.class);
+        for (int from = 0; from < this.customers; from += 500) {
+            repository.saveAll(IntStream.range(from, Math.min(from + 500, this.customers))
+                    .mapToObj(i -> CustomerGraphs.customer(i, 0, 0, false))
+                    .toList());
+        }
+        this.customerSearchIndex = this.context.getBean(CustomerSearchIndex.class);
+        this.customerSearchIndex.search(this.query, LIMIT);
+        this.jdbcTemplate = this.context.getBean(JdbcTemplate.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public List<CustomerSummaryDTO> index() {
+        return this.customerSearchIndex.search(this.query, LIMIT);
+    }
+
+    /** The search as the database would run it, on name and email only. */
+    @Benchmark
+    public List<Map<String, Object>> tableScan() {
+        String pattern = "%" + this.query.toLowerCase() + "%";
+        return this.jdbcTemplate.queryForList("select `id`, `name`, `email`, `phoneNumber`, `created_at` from `Customer`"
+                + " where lower(`name`) like ? or lower(`email`) like ? limit " + LIMIT, pattern, pattern);
+    }
+}
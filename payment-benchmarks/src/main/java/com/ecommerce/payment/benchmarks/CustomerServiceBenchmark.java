@@ -0,0 +1,108 @@
+package com.ecommerce.payment.benchmarks;
+
+import com.ecommerce.payment.PaymentApplication;
+import com.ecommerce.payment.dto.CustomerDTO;
+import com.ecommerce.payment.repository.CustomerRepository;
+import com.ecommerce.payment.services.CustomerService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.OutputStream;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * End-to-end cost of {@link CustomerService#getAllCustomers(int, int)} (id page, batched
+ * graph fetch, mapping) against an embedded H2 database in MySQL mode, compared with
+ * writing the same page as JSON through {@link CustomerService#writeCustomers(int, int, JsonGenerator)}.
+ *
+ * <p>The full application context is started without a web server, with the production
+ * JPA and cache settings and the schema, indexes included, of the Flyway migrations; only the
+ * datasource is swapped and statement logging is turned off. Successive invocations walk
+ * the pages in turn, so the second-level cache is warm after the first pass, as in a
+ * steady-state service.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerServiceBenchmark {
+
+    private static final int CUSTOMERS = 2_000;
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    @Param("5")
+    private int ordersPerCustomer;
+
+    @Param("3")
+    private int productsPerOrder;
+
+    private ConfigurableApplicationContext context;
+
+    private CustomerService customerService;
+
+    private JsonMapper jsonMapper;
+
+    private int pages;
+
+    private int page;
+
+    @Setup
+    public void setUp() {
+        this.context = new SpringApplicationBuilder(PaymentApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_UPPER=FALSE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.properties.hibernate.globally_quoted_identifiers=true",
+                        "--spring.flyway.placeholders.long_text_type=CLOB",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.springframework.jdbc.datasource=WARN",
+                        "--logging.level.com.zaxxer.hikari=WARN",
+                        "--payment.billing.outbox.poll-interval-ms=3600000");
+        CustomerRepository customers = this.context.getBean(CustomerRepository.class);
+        for (int from = 0; from < CUSTOMERS; from += 100) {
+            customers.saveAll(IntStream.range(from, from + 100)
+                    .mapToObj(i -> CustomerGraphs.customer(i, this.ordersPerCustomer, this.productsPerOrder, false))
+                    .toList());
+        }
+        this.customerService = this.context.getBean(CustomerService.class);
+        this.jsonMapper = JsonMapper.builder().build();
+        this.pages = CUSTOMERS / this.pageSize;
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public List<CustomerDTO> getAllCustomers() {
+        this.page = (this.page + 1) % this.pages;
+        return this.customerService.getAllCustomers(this.page, this.pageSize);
+    }
+
+    /** Same page, serialized while it is read; the output is discarded. */
+    @Benchmark
+    public void writeCustomers() {
+        this.page = (this.page + 1) % this.pages;
+        try (JsonGenerator generator = this.jsonMapper.createGenerator(OutputStream.nullOutputStream())) {
+            this.customerService.writeCustomers(this.page, this.pageSize, generator);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.ecommerce.payment.benchmarks;
+
+import com.ecommerce.payment.PaymentApplication;
+import com.ecommerce.payment.model.Customer;
+import com.ecommerce.payment.model.Order;
+import com.ecommerce.payment.model.Product;
+import com.ecommerce.payment.repository.CustomerRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Cost of flushing a large persistence context in which only a few entities changed, and of
+ * loading that context, with and without Hibernate bytecode enhancement of the entities.
+ *
+ * <p>The application context is started as in {@link CustomerServiceBenchmark}. Every
+ * customer, order and order line is loaded into one persistence context per iteration, in a
+ * transaction rolled back at its end; each {@code flush} invocation changes the discount of
+ * {@code dirty} order lines and flushes. {@code load} measures loading the same context; run
+ * it with {@code -prof gc} to compare the allocation per entity. Compare an enhanced build of
+ * the payment module with one installed by {@code mvn clean install -Dhibernate.enhance.phase=none}.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FlushBenchmark {
+
+    @Param("1000")
+    private int customers;
+
+    @Param("10")
+    private int dirty;
+
+    private ConfigurableApplicationContext context;
+
+    private EntityManagerFactory entityManagerFactory;
+
+    private EntityManager entityManager;
+
+    private List<Product> lines;
+
+    private int round;
+
+    @Setup
+    public void setUp() {
+        this.context = new SpringApplicationBuilder(PaymentApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_UPPER=FALSE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.properties.hibernate.globally_quoted_identifiers=true",
+                        "--spring.flyway.placeholders.long_text_type=CLOB",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.springframework.jdbc.datasource=WARN",
+                        "--logging.level.com.zaxxer.hikari=WARN",
+                        "--payment.billing.outbox.poll-interval-ms=3600000");
+        CustomerRepository repository = this.context.getBean(CustomerRepository.class);
+        for (int from = 0; from < this.customers; from += 100) {
+            repository.saveAll(IntStream.range(from, Math.min(from + 100, this.customers))
+                    .mapToObj(i -> CustomerGraphs.customer(i, 5, 3, false))
+                    .toList());
+        }
+        this.entityManagerFactory = this.context.getBean(EntityManagerFactory.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    /** Loads the whole context in a transaction, rolled back after the iteration. */
+    @Setup(Level.Iteration)
+    public void begin() {
+        this.entityManager = this.entityManagerFactory.createEntityManager();
+        this.entityManager.getTransaction().begin();
+        this.lines = load(this.entityManager);
+    }
+
+    @TearDown(Level.Iteration)
+    public void rollBack() {
+        this.entityManager.getTransaction().rollback();
+        this.entityManager.close();
+    }
+
+    /** Changes the discount of a few order lines and flushes the context. */
+    @Benchmark
+    public void flush() {
+        this.round++;
+        for (int i = 0; i < this.dirty; i++) {
+            this.lines.get((this.round * 7919 + i * 104729) % this.lines.size()).setPercentageDiscount(this.round % 50);
+        }
+        this.entityManager.flush();
+    }
+
+    /** Loads the context again, into an emptied persistence context. */
+    @Benchmark
+    public int load() {
+        return load(this.entityManager).size();
+    }
+
+    private static List<Product> load(EntityManager entityManager) {
+        entityManager.clear();
+        entityManager.createQuery("select c from Customer c", Customer.class).getResultList();
+        entityManager.createQuery("select o from Order o join fetch o.customer", Order.class).getResultList();
+        return entityManager.createQuery("select p from Product p join fetch p.order", Product.class).getResultList();
+    }
+}
@@ -0,0 +1,56 @@
+package com.ecommerce.payment.benchmarks;
+
+import com.ecommerce.payment.dto.CustomerDTO;
+import com.ecommerce.payment.mappers.CustomerMapper;
+import com.ecommerce.payment.mappers.CustomerMapperImpl;
+import com.ecommerce.payment.mappers.OrderMapperImpl;
+import com.ecommerce.payment.mappers.ProductMapperImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of serializing a page of {@link CustomerDTO}s, the body of
+ * {@code GET /customers?view=full}, with a default Jackson {@link JsonMapper}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    /** Page sizes: the controller default and maximum. */
+    @Param({"20", "100"})
+    private int customers;
+
+    @Param({"1", "10"})
+    private int ordersPerCustomer;
+
+    @Param("5")
+    private int productsPerOrder;
+
+    private JsonMapper jsonMapper;
+
+    private List<CustomerDTO> page;
+
+    @Setup
+    public void setUp() {
+        try (var context = new AnnotationConfigApplicationContext(
+                CustomerMapperImpl.class, OrderMapperImpl.class, ProductMapperImpl.class)) {
+            CustomerMapper mapper = context.getBean(CustomerMapper.class);
+            this.page = CustomerGraphs.customers(this.customers, this.ordersPerCustomer, this.productsPerOrder)
+                    .stream().map(mapper::customerToCustomerDTO).toList();
+        }
+        this.jsonMapper = JsonMapper.builder().build();
+    }
+
+    @Benchmark
+    public byte[] serializePage() {
+        return this.jsonMapper.writeValueAsBytes(this.page);
+    }
+}
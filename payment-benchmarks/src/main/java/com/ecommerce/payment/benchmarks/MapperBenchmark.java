@@ -0,0 +1,92 @@
+package com.ecommerce.payment.benchmarks;
+
+import com.ecommerce.payment.dto.CustomerDTO;
+import com.ecommerce.payment.dto.OrderDTO;
+import com.ecommerce.payment.mappers.CustomerMapper;
+import com.ecommerce.payment.mappers.CustomerMapperImpl;
+import com.ecommerce.payment.mappers.OrderMapper;
+import com.ecommerce.payment.mappers.OrderMapperImpl;
+import com.ecommerce.payment.mappers.ProductMapperImpl;
+import com.ecommerce.payment.model.Customer;
+import com.ecommerce.payment.model.Order;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the MapStruct mappers on one customer graph of
+ * {@code ordersPerCustomer x productsPerOrder}.
+ *
+ * <p>The mappers are the generated Spring components, wired by a bare application
+ * context so that {@code uses} delegation runs exactly as in the service.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    @Param({"1", "10", "50"})
+    private int ordersPerCustomer;
+
+    @Param({"1", "10"})
+    private int productsPerOrder;
+
+    private AnnotationConfigApplicationContext context;
+
+    private CustomerMapper customerMapper;
+
+    private OrderMapper orderMapper;
+
+    private Customer customer;
+
+    private Order order;
+
+    private CustomerDTO customerDTO;
+
+    private OrderDTO orderDTO;
+
+    @Setup
+    public void setUp() {
+        this.context = new AnnotationConfigApplicationContext(
+                CustomerMapperImpl.class, OrderMapperImpl.class, ProductMapperImpl.class);
+        this.customerMapper = this.context.getBean(CustomerMapper.class);
+        this.orderMapper = this.context.getBean(OrderMapper.class);
+        this.customer = CustomerGraphs.customer(0, this.ordersPerCustomer, this.productsPerOrder, true);
+        this.order = this.customer.getOrders().get(0);
+        this.customerDTO = this.customerMapper.customerToCustomerDTO(this.customer);
+        this.orderDTO = this.orderMapper.orderToOrderDTO(this.order);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    /** Entity graph to DTO, as done by {@code CustomerService.getAllCustomers}. */
+    @Benchmark
+    public CustomerDTO customerToDTO() {
+        return this.customerMapper.customerToCustomerDTO(this.customer);
+    }
+
+    /** DTO graph back to entities, including the back-reference linking. */
+    @Benchmark
+    public Customer customerFromDTO() {
+        return this.customerMapper.customerDTOToCustomer(this.customerDTO);
+    }
+
+    /** A single order and its products to DTO, as returned by order creation. */
+    @Benchmark
+    public OrderDTO orderToDTO() {
+        return this.orderMapper.orderToOrderDTO(this.order);
+    }
+
+    /** A single order DTO to entities, as done on order creation. */
+    @Benchmark
+    public Order orderFromDTO() {
+        return this.orderMapper.orderDTOToOrder(this.orderDTO);
+    }
+}
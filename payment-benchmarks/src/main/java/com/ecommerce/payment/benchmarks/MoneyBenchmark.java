@@ -0,0 +1,68 @@
+package com.ecommerce.payment.benchmarks;
+
+import com.ecommerce.payment.model.Money;
+import com.ecommerce.payment.model.Order;
+import com.ecommerce.payment.model.Product;
+import com.ecommerce.payment.services.OrderTotalCalculator;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of computing an order total with {@link OrderTotalCalculator} against the naive
+ * {@link BigDecimal} implementation it replaces, on one order of {@code lines} products.
+ *
+ * <p>Run with {@code -prof gc} (the default {@code jmh.args}) to compare the allocation
+ * rates as well as the times.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MoneyBenchmark {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    @Param({"1", "10", "100"})
+    private int lines;
+
+    private List<Product> products;
+
+    private BigDecimal[] prices;
+
+    private int[] discounts;
+
+    @Setup
+    public void setUp() {
+        Order order = CustomerGraphs.customer(0, 1, this.lines, true).getOrders().get(0);
+        this.products = order.getProducts();
+        this.prices = new BigDecimal[this.lines];
+        this.discounts = new int[this.lines];
+        for (int i = 0; i < this.lines; i++) {
+            this.prices[i] = this.products.get(i).getPrice().toBigDecimal();
+            this.discounts[i] = this.products.get(i).getPercentageDiscount();
+        }
+    }
+
+    /** {@code long} cents, as done on order creation. */
+    @Benchmark
+    public Money calculator() {
+        return OrderTotalCalculator.total(this.products);
+    }
+
+    /** One {@link BigDecimal} multiply, divide and add per line. */
+    @Benchmark
+    public BigDecimal naiveBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO.setScale(Money.SCALE);
+        for (int i = 0; i < this.prices.length; i++) {
+            total = total.add(this.prices[i].multiply(BigDecimal.valueOf(100 - this.discounts[i]))
+                    .divide(HUNDRED, Money.SCALE, RoundingMode.HALF_UP));
+        }
+        return total;
+    }
+}
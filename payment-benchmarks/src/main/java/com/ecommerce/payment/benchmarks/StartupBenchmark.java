@@ -0,0 +1,47 @@
+package com.ecommerce.payment.benchmarks;
+
+import com.ecommerce.payment.PaymentApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from {@code SpringApplication.run} until the application is ready to serve requests,
+ * with the web server on a random port and an embedded H2 database in MySQL mode.
+ *
+ * <p>The {@code prod} profile initializes beans lazily and bootstraps the JPA repositories in
+ * the background; {@code dev} starts everything up front. Each measurement runs in a fresh JVM,
+ * so class loading and JIT warm-up are part of it, as they are for a new instance. The ahead-of-time
+ * bean definitions and the CDS archive of the Docker image are not covered: they need
+ * {@code -Dspring.aot.enabled=true} and {@code -XX:SharedArchiveFile} on the forked JVM.</p>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    @Param({"dev", "prod"})
+    private String profile;
+
+    @Benchmark
+    public void start() {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(PaymentApplication.class)
+                .profiles(this.profile)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:startup;MODE=MySQL;DATABASE_TO_UPPER=FALSE",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.properties.hibernate.globally_quoted_identifiers=true",
+                        "--spring.flyway.placeholders.long_text_type=CLOB",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN");
+        context.close();
+    }
+}
@@ -0,0 +1,59 @@
+package com.ecommerce.payment.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * In-process caches of the service.
+ *
+ * <p>Caches are backed by Caffeine, whose W-TinyLFU eviction policy keeps frequently read
+ * entries (our hot customers) resident while one-off reads are admitted only if they are
+ * likely to be read again. Each cache is bounded by size and by time-to-live and records
+ * statistics, published by Actuator as the {@code cache.gets} (hit/miss),
+ * {@code cache.puts}, {@code cache.evictions} and {@code cache.size} metrics.</p>
+ *
+ * <p>The cache manager is transaction-aware: evictions requested inside a transaction are
+ * applied after it commits, so a concurrent reader cannot re-populate an entry with data
+ * the transaction is about to change.</p>
+ *
+ * <p>The caching advice runs before any other advice, so a cache hit neither opens a
+ * transaction nor takes a database concurrency permit.</p>
+ */
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+
+    /**
+     * Cache of {@link com.ecommerce.payment.dto.CustomerDetailDTO} keyed by customer {@link java.util.UUID}.
+     */
+    public static final String CUSTOMER_DETAILS = "customerDetails";
+
+    /**
+     * Creates the cache manager holding every cache of the service.
+     *
+     * @param customerMaximumSize maximum number of cached customers
+     * @param customerTtl         time after which a cached customer is reloaded
+     * @return the transaction-aware cache manager
+     */
+    @Bean
+    public CacheManager cacheManager(@Value("${payment.cache.customers.maximum-size:10000}") long customerMaximumSize,
+                                     @Value("${payment.cache.customers.ttl:10m}") Duration customerTtl) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+        cacheManager.registerCustomCache(CUSTOMER_DETAILS, Caffeine.newBuilder()
+                .maximumSize(customerMaximumSize)
+                .expireAfterWrite(customerTtl)
+                .recordStats()
+                .build());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
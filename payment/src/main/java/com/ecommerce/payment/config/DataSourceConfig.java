@@ -0,0 +1,164 @@
+package com.ecommerce.payment.config;
+
+import com.ecommerce.payment.datasource.ConnectionHoldTime;
+import com.ecommerce.payment.datasource.ConnectionLimit;
+import com.ecommerce.payment.datasource.ReadYourWrites;
+import com.ecommerce.payment.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data sources of the service, with routing of read-only transactions to the MySQL replicas
+ * listed in {@code payment.datasource.replicas.urls}.
+ *
+ * <p>The application data source is a {@link LazyConnectionDataSourceProxy} of the primary
+ * pool: it fetches a physical connection only when the first statement runs, so a transaction
+ * answered from the second-level cache takes no connection at all. By that time the
+ * transaction manager has also marked the connection read-only or not. With replicas,
+ * read-write transactions ({@code OrderService.createOrder}, the outbox, the idempotency
+ * records) run on the primary, configured by {@code spring.datasource.*}. Read-only ones
+ * ({@code @Transactional(readOnly = true)}, such as {@code CustomerService.getAllCustomers}
+ * and {@code getCustomerById}) run on a replica chosen by {@link ReplicaRoutingDataSource},
+ * which skips lagging replicas, and {@link ReadYourWrites} keeps a client on the primary for
+ * a while after it writes. Flyway migrates the primary only.</p>
+ *
+ * <p>The beans are always defined and only switch on routing when replicas are configured,
+ * so that an ahead-of-time processed build (see the {@code aot} Maven profile) can still be
+ * pointed at replicas at run time.</p>
+ *
+ * <p>The connections of every pool are timed per request by {@link ConnectionHoldTime}.</p>
+ *
+ * <p>Each replica gets its own connection pool, with the settings and credentials of the
+ * primary pool. Every connection, of the primary or of a replica, counts against one
+ * {@link ConnectionLimit} of {@code payment.db.max-concurrency} connections, by default the
+ * primary pool size (see {@link ExecutionConfig}).</p>
+ */
+@Configuration
+public class DataSourceConfig {
+
+    /**
+     * Creates the connection pool of the primary.
+     *
+     * @param properties the {@code spring.datasource.*} settings
+     * @return the primary pool, further configured by {@code spring.datasource.hikari.*}
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * Creates the limit on the connections held at once by the service, across all pools.
+     *
+     * @param maxConcurrency largest number of connections held at once
+     * @param maxWait        longest time a caller waits for a connection
+     * @return the limit
+     */
+    @Bean
+    public ConnectionLimit connectionLimit(@Value("${payment.db.max-concurrency}") int maxConcurrency,
+                                           @Value("${payment.db.max-wait:30s}") Duration maxWait) {
+        return new ConnectionLimit(maxConcurrency, maxWait);
+    }
+
+    /**
+     * Creates the data source of read-only transactions, with a connection pool per replica.
+     * Without replicas it is not used.
+     *
+     * @param primaryDataSource the primary pool, whose settings the replica pools copy
+     * @param connectionLimit   limit on the connections held at once
+     * @param urls              JDBC URLs of the replicas
+     * @param maxLag            largest replication lag at which a replica is still used
+     * @param lagQuery          query returning the replication lag of a replica
+     * @param meterRegistry     registry of the pool and routing metrics
+     * @return the replica routing data source
+     */
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(HikariDataSource primaryDataSource, ConnectionLimit connectionLimit,
+                                                      @Value("${payment.datasource.replicas.urls:}") List<String> urls,
+                                                      @Value("${payment.datasource.replicas.max-lag:2s}") Duration maxLag,
+                                                      @Value("${payment.datasource.replicas.lag-query:SHOW REPLICA STATUS}") String lagQuery,
+                                                      MeterRegistry meterRegistry) {
+        List<HikariDataSource> replicas = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setJdbcUrl(url.strip());
+            config.setPoolName("replica-" + (replicas.size() + 1));
+            config.setReadOnly(true);
+            config.setMetricRegistry(null);
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(connectionLimit.wrap(primaryDataSource), replicas, connectionLimit,
+                maxLag, lagQuery, meterRegistry);
+    }
+
+    /**
+     * Creates the application data source, which sends read-only transactions to the replicas,
+     * if any.
+     *
+     * @param primaryDataSource the primary pool
+     * @param replicaDataSource the replica routing data source
+     * @param connectionLimit   limit on the connections held at once
+     * @return the data source used by JPA, JDBC and Flyway
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaDataSource,
+                                 ConnectionLimit connectionLimit) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(
+                ConnectionHoldTime.track(connectionLimit.wrap(primaryDataSource)));
+        if (replicaDataSource.hasReplicas()) {
+            dataSource.setReadOnlyDataSource(ConnectionHoldTime.track(replicaDataSource));
+        }
+        return dataSource;
+    }
+
+    /**
+     * Creates the filter timing the connections held by each request.
+     *
+     * @param meterRegistry registry of the hold time timers
+     * @return the filter
+     */
+    @Bean
+    public ConnectionHoldTime connectionHoldTime(MeterRegistry meterRegistry) {
+        return new ConnectionHoldTime(meterRegistry);
+    }
+
+    /**
+     * Creates the read-your-writes filter and transaction listener.
+     *
+     * <p>A write is visible on every replica in use at most the largest tolerated lag plus one
+     * lag check after its commit. One more second covers the whole-second lag reported by
+     * MySQL. Without replicas the filter does nothing.</p>
+     *
+     * @param replicaDataSource  the replica routing data source
+     * @param maxLag             largest replication lag at which a replica is still used
+     * @param lagCheckIntervalMs time between two lag checks
+     * @return the filter, also registered as a transaction execution listener
+     */
+    @Bean
+    public ReadYourWrites readYourWrites(ReplicaRoutingDataSource replicaDataSource,
+                                         @Value("${payment.datasource.replicas.max-lag:2s}") Duration maxLag,
+                                         @Value("${payment.datasource.replicas.lag-check-interval-ms:1000}") long lagCheckIntervalMs) {
+        return new ReadYourWrites(maxLag.plusMillis(lagCheckIntervalMs).plusSeconds(1), replicaDataSource.hasReplicas());
+    }
+}
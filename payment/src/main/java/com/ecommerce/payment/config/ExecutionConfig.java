@@ -0,0 +1,56 @@
+package com.ecommerce.payment.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.resilience.annotation.EnableResilientMethods;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Execution model of the service.
+ *
+ * <p>With {@code spring.threads.virtual.enabled=true} (the default, see
+ * {@code application.properties}) Tomcat handles every request on its own virtual thread,
+ * and the scheduler running the billing outbox dispatcher and the application task
+ * executor use virtual threads as well. Blocking MySQL calls then park a virtual thread
+ * instead of pinning one of a fixed number of platform threads.</p>
+ *
+ * <p>Virtual threads remove the request thread limit, but not the connection limit. Every
+ * connection the service takes, whatever the caller (request threads, the billing outbox
+ * dispatcher, the id filter and search index refreshes, the stock ledger leases, the replica
+ * lag checks), goes through one {@link com.ecommerce.payment.datasource.ConnectionLimit}
+ * of {@code payment.db.max-concurrency} permits, which defaults to the Hikari pool size.
+ * Threads beyond it park on the limit rather than pile up in Hikari's wait queue, and fail
+ * after {@code payment.db.max-wait}. Threads that need no connection, such as cache hits,
+ * are not held back.</p>
+ *
+ * <p>This configuration enables processing of the
+ * {@link org.springframework.resilience.annotation.ConcurrencyLimit @ConcurrencyLimit}
+ * annotation, which caps the concurrent exports separately.</p>
+ *
+ * <p>Streamed responses (the exports and {@code GET /customers?stream=true}) run as MVC
+ * asynchronous requests, the only ones of the service. They would otherwise be cut off by
+ * the container's default async timeout (30 s on Tomcat) after they have started streaming,
+ * so they get {@code payment.streaming.timeout} instead, one hour by default. A negative
+ * value removes the limit.</p>
+ */
+@Configuration
+@EnableResilientMethods
+public class ExecutionConfig implements WebMvcConfigurer {
+
+    /** Longest time a streamed response may take. */
+    @Value("${payment.streaming.timeout:1h}")
+    private Duration streamingTimeout;
+
+    /**
+     * Applies {@code payment.streaming.timeout} to asynchronous requests.
+     *
+     * @param configurer the async support configurer
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(this.streamingTimeout.toMillis());
+    }
+}
@@ -0,0 +1,71 @@
+package com.ecommerce.payment.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.retry.RetryListener;
+import org.springframework.core.retry.RetryPolicy;
+import org.springframework.core.retry.RetryTemplate;
+import org.springframework.core.retry.Retryable;
+import org.springframework.dao.ConcurrencyFailureException;
+
+import java.time.Duration;
+
+/**
+ * Retry policy of write transactions.
+ *
+ * <p>Transactions failing on a lock conflict ({@link ConcurrencyFailureException}: deadlock,
+ * lock wait timeout or optimistic lock failure) are retried with exponential backoff and
+ * jitter, so that colliding writers do not collide again at the same instant. Other
+ * failures are never retried.</p>
+ *
+ * <p>The template must wrap a whole transaction: after a lock conflict MySQL may already have
+ * rolled the transaction back, so retrying a single statement inside it is not safe. That is
+ * also why the {@code @Retryable} annotation is not used on transactional services, where its
+ * advice would run inside the transaction. Retries are counted by the {@value #RETRIES_METRIC}
+ * counter.</p>
+ */
+@Configuration
+public class RetryConfig {
+
+    /** Counter of retried transactions. */
+    public static final String RETRIES_METRIC = "payment.transactions.retries";
+
+    /**
+     * Creates the retry template of write transactions.
+     *
+     * @param maxRetries    maximum number of retries after the first attempt
+     * @param delay         delay before the first retry, doubled for every further one
+     * @param maxDelay      upper bound of the delay
+     * @param jitter        random amount added to or removed from each delay
+     * @param meterRegistry registry of the retry counter
+     * @return the retry template
+     */
+    @Bean
+    public RetryTemplate transactionRetryTemplate(@Value("${payment.transactions.retry.max-retries:3}") long maxRetries,
+                                                  @Value("${payment.transactions.retry.delay:20ms}") Duration delay,
+                                                  @Value("${payment.transactions.retry.max-delay:500ms}") Duration maxDelay,
+                                                  @Value("${payment.transactions.retry.jitter:10ms}") Duration jitter,
+                                                  MeterRegistry meterRegistry) {
+        RetryTemplate retryTemplate = new RetryTemplate(RetryPolicy.builder()
+                .includes(ConcurrencyFailureException.class)
+                .maxRetries(maxRetries)
+                .delay(delay)
+                .multiplier(2)
+                .maxDelay(maxDelay)
+                .jitter(jitter)
+                .build());
+        Counter retries = Counter.builder(RETRIES_METRIC)
+                .description("Write transactions retried after a lock conflict")
+                .register(meterRegistry);
+        retryTemplate.setRetryListener(new RetryListener() {
+            @Override
+            public void beforeRetry(RetryPolicy retryPolicy, Retryable<?> retryable) {
+                retries.increment();
+            }
+        });
+        return retryTemplate;
+    }
+}
@@ -0,0 +1,37 @@
+package com.ecommerce.payment.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+
+/**
+ * Startup behaviour of the service.
+ *
+ * <p>The {@code prod} profile enables {@code spring.main.lazy-initialization}, so that
+ * controllers, services, mappers and actuator endpoints are only created when first used.
+ * Beans with {@code @Scheduled} methods are still created at startup (Spring Boot excludes
+ * them itself), and so is the JPA {@link EntityManagerFactory}: building it takes seconds,
+ * which the first request would otherwise pay. With {@code bootstrap-mode=deferred} it is
+ * built on a background thread while the rest of the context starts.</p>
+ *
+ * <p>Together with the Spring AOT code generated by the {@code aot} Maven profile and the
+ * class data sharing archive built by the {@code Dockerfile}, this is the service's
+ * fast-start mode. Startup time is measured by {@code StartupBenchmark} in
+ * {@code payment-benchmarks}.</p>
+ */
+@Configuration(proxyBeanMethods = false)
+public class StartupConfig {
+
+    /**
+     * Keeps the JPA {@link EntityManagerFactory} eagerly initialized under lazy initialization.
+     *
+     * @return the exclude filter
+     */
+    @Bean
+    static LazyInitializationExcludeFilter eagerEntityManagerFactory() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                EntityManagerFactory.class, AbstractEntityManagerFactoryBean.class);
+    }
+}
@@ -0,0 +1,27 @@
+package com.ecommerce.payment.controller;
+
+import com.ecommerce.payment.error.CustomerNotFound;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Translates the service errors shared by several endpoints into HTTP responses.
+ *
+ * <p>Errors whose response depends on the endpoint, such as malformed identifiers or
+ * idempotency conflicts, are still handled by the controllers themselves.</p>
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    /**
+     * Maps a missing customer to HTTP 404 Not Found with an empty body.
+     *
+     * @param error the preallocated {@link CustomerNotFound} signal
+     * @return HTTP 404 Not Found
+     */
+    @ExceptionHandler(CustomerNotFound.class)
+    public ResponseEntity<Void> customerNotFound(CustomerNotFound error) {
+        return ResponseEntity.notFound().build();
+    }
+}
@@ -3,26 +3,46 @@ package com.ecommerce.payment.controller;
 
 import com.ecommerce.payment.dto.CustomerDTO;
 import com.ecommerce.payment.error.CustomerNotFound;
+import com.ecommerce.payment.services.CustomerIdFilter;
+import com.ecommerce.payment.services.CustomerSearchIndex;
 import com.ecommerce.payment.services.CustomerService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 /**
  * REST controller that exposes customer-related endpoints.
  *
  * <p>Provides endpoints to list customers with simple pagination and to retrieve a
  * single customer by id. This controller validates and clamps pagination parameters
- * and translates service-layer exceptions into appropriate HTTP responses.</p>
+ * and translates service-layer exceptions into appropriate HTTP responses; missing
+ * customers are translated by {@link ApiExceptionHandler}.</p>
  *
  * <p>Endpoints:
  * <ul>
- *   <li>GET /customers - list customers with pagination</li>
+ *   <li>GET /customers - list customers with pagination, or the customers of an id list</li>
+ *   <li>GET /customers/scroll - list customers with keyset (cursor) pagination</li>
+ *   <li>GET /customers/search - find customers by partial name, email or phone number</li>
  *   <li>GET /customers/{id} - retrieve a customer by UUID</li>
+ *   <li>GET /customers/{id}/orders - retrieve a customer's orders with their product lines</li>
  * </ul>
  * </p>
+ *
+ * <p>The list and detail endpoints return the complete {@link CustomerDTO} tree by default
+ * (also selected by {@code view=full}), as they always have. Passing {@code view=summary}
+ * opts into flat, depth-limited views read as projections, which are much cheaper for
+ * clients that do not need the products of every order. Adding {@code stream=true} to the
+ * full list writes the tree while it is read from the database, so large pages do not have
+ * to be materialized; it is served by {@link #streamCustomers(Optional, Optional)}, since
+ * Spring MVC picks the streaming return value handler from the declared return type.</p>
  */
 @RestController
 @RequestMapping("/customers")
@@ -37,54 +57,233 @@ public class CustomerController {
     /** Default page number when the client does not provide a `page` parameter (1-based). */
     private static final int DEFAULT_PAGE_NUMBER = 1;
 
+    /** Value of the `view` parameter that selects the complete customer/order/product tree, the default. */
+    private static final String FULL_VIEW = "full";
+
+    /** Value of the `view` parameter that selects the flat views. */
+    private static final String SUMMARY_VIEW = "summary";
+
+    /** Maximum allowed page size when the full list is streamed; memory use does not grow with it. */
+    private static final int MAX_STREAM_PAGE_SIZE = 10_000;
+
     /** Service that contains customer business logic. */
     @Autowired
     private CustomerService customerService;
 
+    /** Filter of existing customer ids, rejecting lookups of unknown ids before the service is called. */
+    @Autowired
+    private CustomerIdFilter customerIdFilter;
+
+    /** In-memory index answering customer searches. */
+    @Autowired
+    private CustomerSearchIndex customerSearchIndex;
+
+    /** JSON mapper configured by Spring Boot, used to create generators for streamed responses. */
+    @Autowired
+    private JsonMapper jsonMapper;
+
     /**
      * Retrieve a paginated list of customers.
      *
      * <p>Reads optional query parameters `page` and `size`. The controller applies
      * defaults when parameters are missing and clamps `size` to {@value #MAX_PAGE_SIZE}
      * to prevent excessive payloads. Note that this controller treats `page` as
-     * 1-based (first page = 1) and forwards the provided value directly to the service.
-     * If you wish the service to receive zero-based pages, convert the value before
-     * calling the service.</p>
+     * 1-based (first page = 1) and converts it to the zero-based page expected by the
+     * service. Deep pages get slower as the offset grows; prefer {@code /customers/scroll}
+     * to walk the whole table.</p>
      *
      * @param page optional one-based page number (first page = 1). If absent, {@value #DEFAULT_PAGE_NUMBER} is used.
      * @param size optional page size. If absent, {@value #DEFAULT_PAGE_SIZE} is used. The value is clamped to {@value #MAX_PAGE_SIZE}.
-     * @return HTTP 200 with a paginated list of {@link CustomerDTO} objects in the response body
+     * @param view optional view name; {@value #SUMMARY_VIEW} returns {@link com.ecommerce.payment.dto.CustomerSummaryDTO}
+     *             objects, anything else (by default {@value #FULL_VIEW}) returns {@link CustomerDTO} objects
+     * @param ids optional comma-separated customer ids; when present, the customers with those ids are returned
+     *            instead of a page (see {@link #getCustomersByIds(List, Optional)})
+     * @return HTTP 200 with a paginated list of customers in the response body
      */
     @GetMapping("")
-    public ResponseEntity<?> getAllCustomers(@RequestParam Optional<Integer> page, @RequestParam Optional<Integer> size) {
-        int pageNumber = page.orElse(DEFAULT_PAGE_NUMBER);
-        int sizeNumber = size.orElse(DEFAULT_PAGE_SIZE);
-        if (sizeNumber > MAX_PAGE_SIZE) sizeNumber = MAX_PAGE_SIZE;
+    public ResponseEntity<?> getAllCustomers(@RequestParam Optional<Integer> page, @RequestParam Optional<Integer> size,
+                                             @RequestParam Optional<String> view,
+                                             @RequestParam Optional<List<UUID>> ids) {
+        if (ids.isPresent()) {
+            return getCustomersByIds(ids.get(), view);
+        }
+        int pageNumber = Math.max(page.orElse(DEFAULT_PAGE_NUMBER), 1) - 1;
+        int sizeNumber = clampSize(size);
+        if (isSummary(view)) {
+            return ResponseEntity.ok(this.customerService.getCustomerSummaries(pageNumber, sizeNumber));
+        }
         return ResponseEntity.ok(this.customerService.getAllCustomers(pageNumber, sizeNumber));
     }
 
+    /**
+     * Stream a page of the full customer list, ordered by id, while it is read from the
+     * database ({@code stream=true} without {@code view=summary} or {@code ids}).
+     *
+     * <p>Pagination follows {@link #getAllCustomers(Optional, Optional, Optional, Optional)},
+     * with `size` allowed up to {@value #MAX_STREAM_PAGE_SIZE}. The response may take up to
+     * {@code payment.streaming.timeout} (see {@link com.ecommerce.payment.config.ExecutionConfig}).
+     * A failure while streaming aborts the response instead of producing an error status.</p>
+     *
+     * @param page optional one-based page number (first page = 1). If absent, {@value #DEFAULT_PAGE_NUMBER} is used.
+     * @param size optional page size. If absent, {@value #DEFAULT_PAGE_SIZE} is used. The value is clamped to {@value #MAX_STREAM_PAGE_SIZE}.
+     * @return HTTP 200 streaming a JSON array of {@link CustomerDTO} objects
+     */
+    @GetMapping(value = "", params = {"stream=true", "view!=" + SUMMARY_VIEW, "!ids"})
+    public ResponseEntity<StreamingResponseBody> streamCustomers(@RequestParam Optional<Integer> page,
+                                                                 @RequestParam Optional<Integer> size) {
+        int pageNumber = Math.max(page.orElse(DEFAULT_PAGE_NUMBER), 1) - 1;
+        int streamSize = clampSize(size, MAX_STREAM_PAGE_SIZE);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = this.jsonMapper.createGenerator(out)) {
+                this.customerService.writeCustomers(pageNumber, streamSize, generator);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Retrieve the customers with the given ids, for clients that would otherwise call
+     * {@code GET /customers/{id}} once per customer.
+     *
+     * <p>Returns the same views as {@link #getCustomerById(String, Optional)}: by default the
+     * {@link CustomerDTO} of each customer, and with {@value #SUMMARY_VIEW} its
+     * {@link com.ecommerce.payment.dto.CustomerDetailDTO}, read with one query for the
+     * customers and one for their orders. Ids that do not exist are left out, and the others
+     * are returned in the order given, once each.</p>
+     *
+     * @param ids the customer ids, at most {@value #MAX_PAGE_SIZE}
+     * @param view optional view name; {@value #SUMMARY_VIEW} returns {@link com.ecommerce.payment.dto.CustomerDetailDTO}
+     *             objects, anything else {@link CustomerDTO} objects
+     * @return HTTP 200 with the list of customers found, or HTTP 400 if there are too many ids
+     */
+    private ResponseEntity<?> getCustomersByIds(List<UUID> ids, Optional<String> view) {
+        if (ids.size() > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body("At most " + MAX_PAGE_SIZE + " ids per request");
+        }
+        List<UUID> known = ids.stream().filter(this.customerIdFilter::mightExist).toList();
+        if (isSummary(view)) {
+            return ResponseEntity.ok(this.customerService.getCustomerDetails(known));
+        }
+        return ResponseEntity.ok(this.customerService.getCustomersByIds(known));
+    }
+
+    /**
+     * Retrieve a keyset page of customers ordered by creation time and id.
+     *
+     * <p>The first request omits `cursor`; each response carries a `nextCursor` token to
+     * pass back for the following page, or {@code null} once the end is reached. The cost
+     * of a request does not depend on how far into the table it is.</p>
+     *
+     * @param cursor optional opaque token returned by the previous call
+     * @param size optional page size. If absent, {@value #DEFAULT_PAGE_SIZE} is used. The value is clamped to {@value #MAX_PAGE_SIZE}.
+     * @return HTTP 200 with a {@link com.ecommerce.payment.dto.CustomerSliceDTO}, or HTTP 400 if the cursor is malformed
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<?> scrollCustomers(@RequestParam Optional<String> cursor, @RequestParam Optional<Integer> size) {
+        try {
+            return ResponseEntity.ok(this.customerService.getCustomerSlice(cursor.orElse(null), clampSize(size)));
+        } catch (IllegalArgumentException error) {
+            return ResponseEntity.badRequest().body("Invalid cursor");
+        }
+    }
+
+    /**
+     * Find customers whose name or email contains the query, ignoring case, or whose phone
+     * number contains its digits.
+     *
+     * <p>Searches are answered from the in-memory {@link CustomerSearchIndex}, without
+     * querying the database once the index is built.</p>
+     *
+     * @param q the text to look for, at least {@value CustomerSearchIndex#GRAM} characters
+     * @param size optional maximum number of results. If absent, {@value #DEFAULT_PAGE_SIZE} is used. The value is clamped to {@value #MAX_PAGE_SIZE}.
+     * @return HTTP 200 with a list of {@link com.ecommerce.payment.dto.CustomerSummaryDTO} objects, or HTTP 400 if the query is too short
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchCustomers(@RequestParam String q, @RequestParam Optional<Integer> size) {
+        try {
+            return ResponseEntity.ok(this.customerSearchIndex.search(q, clampSize(size)));
+        } catch (IllegalArgumentException error) {
+            return ResponseEntity.badRequest().body(error.getMessage());
+        }
+    }
+
     /**
      * Retrieve a single customer by its UUID identifier.
      *
      * <p>Calls the service to fetch the customer. If the customer cannot be found
-     * the service throws {@link CustomerNotFound} which this controller maps to
-     * HTTP 404 Not Found. Any unexpected exception is mapped to HTTP 500 Internal Server Error.</p>
+     * the service throws {@link CustomerNotFound}, which {@link ApiExceptionHandler} maps to
+     * HTTP 404 Not Found. Ids that {@link CustomerIdFilter} knows do not exist are rejected
+     * the same way before the service is called, without a transaction or a query.</p>
      *
      * @param id the customer's UUID as a String (expected non-null and in UUID format)
-     * @return HTTP 200 with the {@link CustomerDTO} in the response body when found
+     * @param view optional view name; {@value #SUMMARY_VIEW} returns the {@link com.ecommerce.payment.dto.CustomerDetailDTO},
+     *             anything else (by default {@value #FULL_VIEW}) returns the {@link CustomerDTO}
+     * @return HTTP 200 with the customer in the response body when found
+     * @throws CustomerNotFound if the customer does not exist
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> getCustomerById(@PathVariable String id) {
+    public ResponseEntity<?> getCustomerById(@PathVariable String id, @RequestParam Optional<String> view)
+            throws CustomerNotFound {
         try{
+            UUID uuid = requireKnown(id);
+            if (isSummary(view)) {
+                return ResponseEntity.ok(this.customerService.getCustomerDetail(uuid));
+            }
             CustomerDTO customer = this.customerService.getCustomerById(id);
             return ResponseEntity.ok(customer);
-        }catch (CustomerNotFound error) {
-            return ResponseEntity.notFound().build();
         }catch (IllegalArgumentException error) {
             return ResponseEntity.badRequest().body("Invalid UUID format for customer ID");
-        }catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
         }
+    }
+
+    /**
+     * Retrieve the orders of a customer together with their product lines.
+     *
+     * <p>Error handling follows {@link #getCustomerById(String, Optional)}.</p>
+     *
+     * @param id the customer's UUID as a String (expected non-null and in UUID format)
+     * @return HTTP 200 with a list of {@link com.ecommerce.payment.dto.OrderLinesDTO} objects when the customer exists
+     * @throws CustomerNotFound if the customer does not exist
+     */
+    @GetMapping("/{id}/orders")
+    public ResponseEntity<?> getCustomerOrders(@PathVariable String id) throws CustomerNotFound {
+        try{
+            requireKnown(id);
+            return ResponseEntity.ok(this.customerService.getCustomerOrders(id));
+        }catch (IllegalArgumentException error) {
+            return ResponseEntity.badRequest().body("Invalid UUID format for customer ID");
+        }
+    }
 
+    /**
+     * Parses a customer id and rejects it if the {@link CustomerIdFilter} knows no such customer.
+     */
+    private UUID requireKnown(String id) throws CustomerNotFound {
+        UUID uuid = UUID.fromString(id);
+        if (!this.customerIdFilter.mightExist(uuid)) {
+            throw CustomerNotFound.INSTANCE;
+        }
+        return uuid;
+    }
+
+    /**
+     * Tells whether the client opted into the flat views with {@code view=summary}.
+     */
+    private static boolean isSummary(Optional<String> view) {
+        return view.filter(SUMMARY_VIEW::equals).isPresent();
+    }
+
+    /**
+     * Applies the default page size and clamps it to the range [1, {@value #MAX_PAGE_SIZE}].
+     */
+    private static int clampSize(Optional<Integer> size) {
+        return clampSize(size, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Applies the default page size and clamps it to the range [1, {@code max}].
+     */
+    private static int clampSize(Optional<Integer> size, int max) {
+        return Math.min(Math.max(size.orElse(DEFAULT_PAGE_SIZE), 1), max);
     }
 }
@@ -0,0 +1,99 @@
+package com.ecommerce.payment.controller;
+
+import com.ecommerce.payment.services.ExportFormat;
+import com.ecommerce.payment.services.ExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Optional;
+
+/**
+ * REST controller that exposes bulk exports of whole tables.
+ *
+ * <p>Endpoints:
+ * <ul>
+ *   <li>GET /exports/customers - every customer</li>
+ *   <li>GET /exports/orders - every order</li>
+ * </ul>
+ * </p>
+ *
+ * <p>The {@code format} parameter selects {@code ndjson} (default) or {@code csv}. Exports
+ * are streamed as they are read from the database and gzip-compressed when the client
+ * accepts it. A failure while streaming aborts the response instead of producing an error
+ * status, so clients should check that the download completed. Exports may take up to
+ * {@code payment.streaming.timeout} (see {@link com.ecommerce.payment.config.ExecutionConfig}).</p>
+ *
+ * <p>The handlers declare a {@code ResponseEntity<StreamingResponseBody>}: Spring MVC picks
+ * the streaming return value handler from the declared type, not from the returned body.</p>
+ */
+@RestController
+@RequestMapping("/exports")
+public class ExportController {
+
+    /** Service that writes the exports. */
+    @Autowired
+    private ExportService exportService;
+
+    /**
+     * Export every customer, ordered by id.
+     *
+     * @param format optional format name, {@code ndjson} or {@code csv}
+     * @return HTTP 200 streaming the customers, or HTTP 400 if the format is not supported
+     */
+    @GetMapping("/customers")
+    public ResponseEntity<StreamingResponseBody> exportCustomers(@RequestParam Optional<String> format) {
+        return export("customers", format, (exportFormat, out) -> this.exportService.exportCustomers(exportFormat, out));
+    }
+
+    /**
+     * Export every order, ordered by id.
+     *
+     * @param format optional format name, {@code ndjson} or {@code csv}
+     * @return HTTP 200 streaming the orders, or HTTP 400 if the format is not supported
+     */
+    @GetMapping("/orders")
+    public ResponseEntity<StreamingResponseBody> exportOrders(@RequestParam Optional<String> format) {
+        return export("orders", format, (exportFormat, out) -> this.exportService.exportOrders(exportFormat, out));
+    }
+
+    /**
+     * Maps an unsupported {@code format} to HTTP 400 Bad Request.
+     *
+     * @param error the error thrown by {@link ExportFormat#of(String)}
+     * @return HTTP 400 with a message listing the supported formats
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> unsupportedFormat(IllegalArgumentException error) {
+        return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN)
+                .body("Unsupported export format, use ndjson or csv");
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(String name, Optional<String> format, Exporter exporter) {
+        ExportFormat exportFormat = format.map(ExportFormat::of).orElse(ExportFormat.NDJSON);
+        StreamingResponseBody body = out -> exporter.export(exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(name + "." + exportFormat.getExtension()).build().toString())
+                .body(body);
+    }
+
+    /**
+     * Writes one export to the response body.
+     */
+    @FunctionalInterface
+    private interface Exporter {
+        void export(ExportFormat format, OutputStream out) throws IOException;
+    }
+}
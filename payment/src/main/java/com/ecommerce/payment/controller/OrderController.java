@@ -0,0 +1,126 @@
+package com.ecommerce.payment.controller;
+
+import com.ecommerce.payment.dto.OrderDTO;
+import com.ecommerce.payment.error.IdempotencyKeyConflict;
+import com.ecommerce.payment.error.InsufficientStock;
+import com.ecommerce.payment.services.IdempotencyService;
+import com.ecommerce.payment.services.OrderService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * REST controller that exposes order-related endpoints.
+ *
+ * <p>Endpoints:
+ * <ul>
+ *   <li>POST /orders - create a single order</li>
+ *   <li>POST /orders:batch - create many orders in one call</li>
+ * </ul>
+ * </p>
+ *
+ * <p>Orders must reference an existing customer through {@code customerId}. Requests
+ * referencing no customer or an unknown one are rejected with HTTP 400.</p>
+ *
+ * <p>Every product line must reference a catalog product by {@code id}, and buys one unit of
+ * it; prices and discounts are taken from the catalog, never from the request. Orders with a
+ * line referencing no catalog product or an unknown one are rejected with HTTP 400, and
+ * orders asking for more units than are in stock with HTTP 409.</p>
+ *
+ * <p>Single orders may carry an {@value #IDEMPOTENCY_KEY} header. Retrying with the same
+ * key and body returns the original order (with {@value #IDEMPOTENT_REPLAYED} set to
+ * {@code true}) instead of creating and billing a second one, so clients can safely retry
+ * requests that timed out.</p>
+ */
+@RestController
+public class OrderController {
+
+    /** Request header carrying the client's idempotency key. */
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    /** Response header set when the order was created by an earlier request with the same key. */
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
+    /** Maximum length of an idempotency key. */
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
+    /** Service that contains order business logic. */
+    @Autowired
+    private OrderService orderService;
+
+    /** Service that deduplicates order creation by idempotency key. */
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    /** Maximum number of orders accepted by a single batch request. */
+    @Value("${payment.orders.max-batch-size:5000}")
+    private int maxBatchSize;
+
+    /**
+     * Create a single order.
+     *
+     * @param order the order to create
+     * @param idempotencyKey optional key (at most {@value #MAX_IDEMPOTENCY_KEY_LENGTH} characters) identifying
+     *                       this order across retries
+     * @return HTTP 201 with the created {@link OrderDTO}; HTTP 400 if the order or key is invalid; HTTP 409 if
+     *         a product is out of stock or the original request with the key is still in progress; HTTP 422
+     *         if the key was used for a different order
+     */
+    @PostMapping("/orders")
+    public ResponseEntity<?> createOrder(@RequestBody OrderDTO order,
+                                         @RequestHeader(IDEMPOTENCY_KEY) Optional<String> idempotencyKey) {
+        try {
+            if (idempotencyKey.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.CREATED).body(this.orderService.createOrder(order));
+            }
+            String key = idempotencyKey.get();
+            if (key.isBlank() || key.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+                return ResponseEntity.badRequest().body("Invalid " + IDEMPOTENCY_KEY + " header");
+            }
+            IdempotencyService.Outcome outcome = this.idempotencyService.createOrder(key, order);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header(IDEMPOTENT_REPLAYED, Boolean.toString(outcome.replayed()))
+                    .body(outcome.order());
+        } catch (IdempotencyKeyConflict error) {
+            return ResponseEntity.status(error.isReused() ? HttpStatus.UNPROCESSABLE_CONTENT : HttpStatus.CONFLICT)
+                    .body(error.getMessage());
+        } catch (InsufficientStock error) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error.getMessage());
+        } catch (IllegalArgumentException | DataIntegrityViolationException error) {
+            return ResponseEntity.badRequest()
+                    .body("Invalid order: it must reference an existing customer and existing catalog products");
+        }
+    }
+
+    /**
+     * Create many orders in one call.
+     *
+     * <p>The batch is stored atomically using JDBC batch inserts; billing requests for all
+     * orders are queued together and delivered asynchronously. At most
+     * {@code payment.orders.max-batch-size} orders are accepted per call.</p>
+     *
+     * @param orders the orders to create
+     * @return HTTP 201 with the created {@link OrderDTO}s in submission order, HTTP 400 if the
+     *         batch is too large or any order is invalid, or HTTP 409 if a product does not have
+     *         enough stock for the whole batch (in which case none is created)
+     */
+    @PostMapping("/orders:batch")
+    public ResponseEntity<?> createOrders(@RequestBody List<OrderDTO> orders) {
+        if (orders.size() > this.maxBatchSize) {
+            return ResponseEntity.badRequest().body("A batch holds at most " + this.maxBatchSize + " orders");
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(this.orderService.createOrders(orders));
+        } catch (InsufficientStock error) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error.getMessage());
+        } catch (IllegalArgumentException | DataIntegrityViolationException error) {
+            return ResponseEntity.badRequest().body("Invalid batch: every order must reference an existing customer and existing catalog products");
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.ecommerce.payment.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures how long each request holds database connections, published as the
+ * {@value #METRIC} timer tagged with the request's {@code uri} pattern.
+ *
+ * <p>The connections of the pools wrapped by {@link #track(DataSource)} are timed from the
+ * moment they are taken from the pool until they are returned, and the times of all the
+ * connections a request takes are added up. Requests that take no connection, such as cache
+ * hits, are not recorded. Comparing the timer with {@code http.server.requests} shows how
+ * much of a request runs outside its transactions (mapping, serialization), which
+ * should hold no connection.</p>
+ *
+ * <p>Connections are only tracked on the thread handling the request, so the work of
+ * streamed response bodies is not included. The per-connection pool metric
+ * {@code hikaricp.connections.usage} does cover it.</p>
+ */
+public class ConnectionHoldTime extends OncePerRequestFilter {
+
+    /** Timer of the time a request holds database connections. */
+    public static final String METRIC = "payment.db.connection.hold";
+
+    private static final ThreadLocal<RequestHold> CURRENT = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Creates the filter.
+     *
+     * @param meterRegistry registry of the hold time timers
+     */
+    public ConnectionHoldTime(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Wraps a connection pool so that the connections taken from it during a request are timed.
+     *
+     * @param dataSource the pool
+     * @return the wrapped pool
+     */
+    public static DataSource track(DataSource dataSource) {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return hold(super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return hold(super.getConnection(username, password));
+            }
+        };
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestHold hold = new RequestHold();
+        CURRENT.set(hold);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            CURRENT.remove();
+            if (hold.connections.sum() > 0) {
+                Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                Timer.builder(METRIC)
+                        .description("Time a request holds database connections, all of its connections added up")
+                        .tag("uri", uri == null ? "UNKNOWN" : uri.toString())
+                        .publishPercentileHistogram()
+                        .register(this.meterRegistry)
+                        .record(hold.nanos.sum(), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private static Connection hold(Connection connection) {
+        RequestHold hold = CURRENT.get();
+        if (hold == null) {
+            return connection;
+        }
+        hold.connections.increment();
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class}, new HeldConnection(connection, hold));
+    }
+
+    /**
+     * Connection times of the request handled by the current thread.
+     */
+    private static final class RequestHold {
+
+        private final LongAdder connections = new LongAdder();
+
+        private final LongAdder nanos = new LongAdder();
+    }
+
+    /**
+     * Adds the time from creation to the first {@code close()} of a connection to its request.
+     */
+    private static final class HeldConnection implements InvocationHandler {
+
+        private final Connection target;
+
+        private final RequestHold hold;
+
+        private final long start = System.nanoTime();
+
+        private boolean closed;
+
+        private HeldConnection(Connection target, RequestHold hold) {
+            this.target = target;
+            this.hold = hold;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "getTargetConnection" -> {
+                    return this.target;
+                }
+                case "close" -> {
+                    if (!this.closed) {
+                        this.closed = true;
+                        this.hold.nanos.add(System.nanoTime() - this.start);
+                    }
+                }
+                default -> {
+                }
+            }
+            try {
+                return method.invoke(this.target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.ecommerce.payment.datasource;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the number of database connections held at once by the whole service.
+ *
+ * <p>Every data source wrapped by {@link #wrap(DataSource)} shares the same permits: a permit
+ * is taken before a connection is requested from the pool and given back when the
+ * connection is closed. With the permits sized to the connection pool, callers never wait
+ * in the pool itself; they park on the limit instead, which costs nothing to a virtual
+ * thread, in arrival order. Since the permits cover every pool, the connections of the
+ * replica pools count against the same limit as those of the primary.</p>
+ *
+ * <p>A caller that cannot get a permit within the configured wait fails with a
+ * {@link SQLTransientConnectionException}, as it would on a pool timeout. The wait bounds
+ * the damage of code that takes a second connection while holding one, which can exhaust
+ * the permits and must be avoided.</p>
+ */
+public class ConnectionLimit {
+
+    private final Semaphore permits;
+
+    private final int limit;
+
+    private final long maxWaitNanos;
+
+    /**
+     * Creates the limit.
+     *
+     * @param limit   largest number of connections held at once
+     * @param maxWait longest time a caller waits for a connection
+     */
+    public ConnectionLimit(int limit, Duration maxWait) {
+        this.permits = new Semaphore(limit, true);
+        this.limit = limit;
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    /**
+     * Returns the largest number of connections held at once.
+     *
+     * @return the number of permits
+     */
+    public int getLimit() {
+        return this.limit;
+    }
+
+    /**
+     * Returns the number of connections that can still be taken without waiting.
+     *
+     * @return the number of free permits
+     */
+    public int getAvailable() {
+        return this.permits.availablePermits();
+    }
+
+    /**
+     * Wraps a data source so that its connections count against this limit.
+     *
+     * @param dataSource the data source
+     * @return the wrapped data source
+     */
+    public DataSource wrap(DataSource dataSource) {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                acquire();
+                try {
+                    return limited(super.getConnection());
+                } catch (SQLException | RuntimeException e) {
+                    ConnectionLimit.this.permits.release();
+                    throw e;
+                }
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                acquire();
+                try {
+                    return limited(super.getConnection(username, password));
+                } catch (SQLException | RuntimeException e) {
+                    ConnectionLimit.this.permits.release();
+                    throw e;
+                }
+            }
+        };
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!this.permits.tryAcquire(this.maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                throw new SQLTransientConnectionException("No database connection available within "
+                        + Duration.ofNanos(this.maxWaitNanos) + " (limit " + this.limit + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+        }
+    }
+
+    private Connection limited(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class}, new LimitedConnection(connection));
+    }
+
+    /**
+     * Gives the permit of a connection back on its first {@code close()}.
+     */
+    private final class LimitedConnection implements InvocationHandler {
+
+        private final Connection target;
+
+        private boolean closed;
+
+        private LimitedConnection(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "getTargetConnection" -> {
+                    return this.target;
+                }
+                case "close" -> {
+                    if (!this.closed) {
+                        this.closed = true;
+                        try {
+                            return method.invoke(this.target, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        } finally {
+                            ConnectionLimit.this.permits.release();
+                        }
+                    }
+                }
+                default -> {
+                }
+            }
+            try {
+                return method.invoke(this.target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
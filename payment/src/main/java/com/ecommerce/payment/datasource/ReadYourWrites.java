@@ -0,0 +1,147 @@
+package com.ecommerce.payment.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Read-your-writes consistency for clients of the replicas: after a client commits a write,
+ * its reads go to the primary until every replica in use has caught up.
+ *
+ * <p>When a request commits a read-write transaction (creating an order, for instance), the
+ * response sets the {@value #COOKIE} cookie to the time until which the client's reads must
+ * stay on the primary. That window covers the largest lag of a replica in use plus one lag
+ * check (see {@link ReplicaRoutingDataSource}). Requests carrying the cookie inside its
+ * window, and the rest of the writing request itself, are pinned to the primary. Clients
+ * that drop cookies may read their writes late from a replica.</p>
+ *
+ * <p>The request state is kept per thread, so it does not follow work handed to other
+ * threads, such as streamed response bodies.</p>
+ */
+public class ReadYourWrites extends OncePerRequestFilter implements TransactionExecutionListener {
+
+    /** Cookie holding the epoch millisecond until which the client reads from the primary. */
+    public static final String COOKIE = "payment-read-primary-until";
+
+    private static final ThreadLocal<RequestState> CURRENT = new ThreadLocal<>();
+
+    private final Duration window;
+
+    private final boolean enabled;
+
+    /**
+     * Creates the filter.
+     *
+     * @param window  time during which a client reads from the primary after a write
+     * @param enabled whether reads are routed to replicas; if not, requests are not tracked
+     */
+    public ReadYourWrites(Duration window, boolean enabled) {
+        this.window = window;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns the time during which a client reads from the primary after a write, by which
+     * every replica in use has the write.
+     *
+     * @return the read-your-writes window
+     */
+    public Duration getWindow() {
+        return this.window;
+    }
+
+    /**
+     * Tells whether reads are routed to replicas, so that writes may not be visible to all
+     * reads right away.
+     *
+     * @return {@code true} if replicas are configured
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Tells whether reads of the current thread must go to the primary.
+     *
+     * @return {@code true} within a request pinned to the primary
+     */
+    public static boolean isPinned() {
+        RequestState state = CURRENT.get();
+        return state != null && state.pinned;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !this.enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        CURRENT.set(new RequestState(response, pinnedUntil(request) > System.currentTimeMillis()));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Pins the current request to the primary, and the client for the window, once a
+     * read-write transaction has committed.
+     */
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        RequestState state = CURRENT.get();
+        if (state == null || commitFailure != null || !transaction.isNewTransaction() || transaction.isReadOnly()) {
+            return;
+        }
+        state.pinned = true;
+        if (!state.response.isCommitted()) {
+            Cookie cookie = new Cookie(COOKIE, Long.toString(System.currentTimeMillis() + this.window.toMillis()));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(this.window.toSeconds(), 1));
+            state.response.addCookie(cookie);
+        }
+    }
+
+    private static long pinnedUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (COOKIE.equals(cookie.getName())) {
+                    try {
+                        return Long.parseLong(cookie.getValue());
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Response and routing decision of the request handled by the current thread.
+     */
+    private static final class RequestState {
+
+        private final HttpServletResponse response;
+
+        private boolean pinned;
+
+        private RequestState(HttpServletResponse response, boolean pinned) {
+            this.response = response;
+            this.pinned = pinned;
+        }
+    }
+}
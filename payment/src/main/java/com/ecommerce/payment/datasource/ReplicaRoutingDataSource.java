@@ -0,0 +1,210 @@
+package com.ecommerce.payment.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Data source of read-only transactions: hands out connections to the MySQL replicas that
+ * are close enough to the primary, and to the primary otherwise.
+ *
+ * <p>The replication lag of every replica is measured every
+ * {@code payment.datasource.replicas.lag-check-interval-ms} by the lag query (by default
+ * {@code SHOW REPLICA STATUS}, whose {@value #LAG_COLUMN} column holds the lag in seconds).
+ * A replica is used while its last measured lag is at most
+ * {@code payment.datasource.replicas.max-lag}. Replicas that cannot be reached, whose
+ * replication is stopped, or that report no replication at all are skipped. Until their
+ * first check, and whenever none qualifies, reads go to the primary. Usable replicas take
+ * connections in turn.</p>
+ *
+ * <p>Requests pinned by {@link ReadYourWrites}, which follow a write of the same client,
+ * always read from the primary.</p>
+ *
+ * <p>The replica connections, those of the lag checks included, count against the
+ * {@link ConnectionLimit} shared with the primary.</p>
+ *
+ * <p>Metrics: the {@value #LAG_METRIC} gauge (tagged {@code replica}; -1 while unusable) and the
+ * {@value #CONNECTIONS_METRIC} counter of read-only connections (tagged {@code target=replica}
+ * or {@code target=primary}).</p>
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    /** Column of the lag query holding the replication lag in seconds. */
+    public static final String LAG_COLUMN = "Seconds_Behind_Source";
+
+    /** Gauge of the last measured lag of each replica, in seconds. */
+    public static final String LAG_METRIC = "payment.datasource.replica.lag";
+
+    /** Counter of the read-only connections handed out. */
+    public static final String CONNECTIONS_METRIC = "payment.datasource.read.connections";
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas;
+
+    private final long maxLagSeconds;
+
+    private final String lagQuery;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Counter replicaConnections;
+
+    private final Counter primaryConnections;
+
+    /**
+     * Creates the data source.
+     *
+     * @param primary       data source of the primary, used when no replica qualifies
+     * @param replicas      connection pools of the replicas
+     * @param limit         limit on the connections held at once, shared with the primary
+     * @param maxLag        largest replication lag at which a replica is still used
+     * @param lagQuery      query returning the replication lag in its {@value #LAG_COLUMN} column
+     * @param meterRegistry registry of the lag gauges and connection counters
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas, ConnectionLimit limit,
+                                    Duration maxLag, String lagQuery, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(pool -> new Replica(pool, limit.wrap(pool))).toList();
+        this.maxLagSeconds = maxLag.toSeconds();
+        this.lagQuery = lagQuery;
+        for (Replica replica : this.replicas) {
+            Gauge.builder(LAG_METRIC, replica, r -> r.lagSeconds)
+                    .description("Replication lag of the replica at its last check, -1 while it is not used")
+                    .baseUnit("seconds")
+                    .tag("replica", replica.dataSource.getPoolName())
+                    .register(meterRegistry);
+        }
+        this.replicaConnections = connectionCounter(meterRegistry, "replica");
+        this.primaryConnections = connectionCounter(meterRegistry, "primary");
+    }
+
+    private static Counter connectionCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder(CONNECTIONS_METRIC)
+                .description("Connections of read-only transactions, by database")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Tells whether any replica is configured.
+     *
+     * @return {@code true} if read-only transactions can be routed to replicas
+     */
+    public boolean hasReplicas() {
+        return !this.replicas.isEmpty();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return target().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return target().getConnection(username, password);
+    }
+
+    /**
+     * Picks the data source of the next read-only connection.
+     */
+    private DataSource target() {
+        if (hasReplicas() && !ReadYourWrites.isPinned()) {
+            int size = this.replicas.size();
+            int start = Math.floorMod(this.next.getAndIncrement(), size);
+            for (int i = 0; i < size; i++) {
+                Replica replica = this.replicas.get((start + i) % size);
+                if (replica.usable) {
+                    this.replicaConnections.increment();
+                    return replica.connections;
+                }
+            }
+        }
+        this.primaryConnections.increment();
+        return this.primary;
+    }
+
+    /**
+     * Measures the lag of every replica and updates the set of usable ones.
+     *
+     * <p>Runs every {@code payment.datasource.replicas.lag-check-interval-ms} milliseconds;
+     * can also be called directly.</p>
+     */
+    @Scheduled(fixedDelayString = "${payment.datasource.replicas.lag-check-interval-ms:1000}")
+    public void checkLag() {
+        for (Replica replica : this.replicas) {
+            long lag = measureLag(replica);
+            boolean usable = lag >= 0 && lag <= this.maxLagSeconds;
+            if (usable != replica.usable) {
+                if (usable) {
+                    log.info("Replica {} is in use, {} s behind", replica.dataSource.getPoolName(), lag);
+                } else {
+                    log.warn("Replica {} is not in use, lag: {}", replica.dataSource.getPoolName(),
+                            lag < 0 ? "unknown" : lag + " s");
+                }
+            }
+            replica.lagSeconds = usable ? lag : -1;
+            replica.usable = usable;
+        }
+    }
+
+    /**
+     * Returns the lag of a replica in seconds, or -1 if it is unknown.
+     */
+    private long measureLag(Replica replica) {
+        try (Connection connection = replica.connections.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet status = statement.executeQuery(this.lagQuery)) {
+            if (!status.next()) {
+                return -1;
+            }
+            long lag = status.getLong(LAG_COLUMN);
+            return status.wasNull() ? -1 : lag;
+        } catch (SQLException e) {
+            log.debug("Could not check the lag of replica {}", replica.dataSource.getPoolName(), e);
+            return -1;
+        }
+    }
+
+    /**
+     * Closes the replica connection pools.
+     */
+    @Override
+    public void close() {
+        this.replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    /**
+     * A replica pool and its last lag check.
+     */
+    private static final class Replica {
+
+        private final HikariDataSource dataSource;
+
+        /** The pool, wrapped by the connection limit. */
+        private final DataSource connections;
+
+        private volatile boolean usable;
+
+        private volatile long lagSeconds = -1;
+
+        private Replica(HikariDataSource dataSource, DataSource connections) {
+            this.dataSource = dataSource;
+            this.connections = connections;
+        }
+    }
+}
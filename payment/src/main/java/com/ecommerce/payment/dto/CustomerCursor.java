@@ -0,0 +1,58 @@
+package com.ecommerce.payment.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in the keyset ordering {@code (createdAt, id)} of customers.
+ *
+ * <p>Clients only see the opaque token produced by {@link #encode()}; its layout is
+ * an implementation detail and may change.</p>
+ *
+ * @param createdAt creation timestamp of the last customer returned
+ * @param id        identifier of the last customer returned
+ */
+public record CustomerCursor(LocalDateTime createdAt, UUID id) {
+
+    private static final char SEPARATOR = '|';
+
+    /**
+     * Returns the cursor positioned after the given customer.
+     *
+     * @param customer the last customer of a page
+     * @return the cursor
+     */
+    public static CustomerCursor after(CustomerSummaryDTO customer) {
+        return new CustomerCursor(customer.createdAt(), customer.id());
+    }
+
+    /**
+     * Encodes the cursor as an opaque, URL-safe token.
+     *
+     * @return the token
+     */
+    public String encode() {
+        String raw = this.createdAt.toString() + SEPARATOR + this.id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @param token the opaque token
+     * @return the cursor
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static CustomerCursor decode(String token) throws IllegalArgumentException {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            return new CustomerCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid customer cursor", e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.ecommerce.payment.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Detail view of a customer: the customer's own fields plus a one-level summary of
+ * its orders. Products are not included; see {@link OrderLinesDTO} for those.
+ *
+ * @param id          unique identifier of the customer
+ * @param name        customer's full name
+ * @param email       customer's email address
+ * @param phoneNumber customer's phone number
+ * @param orders      summaries of the orders placed by the customer
+ */
+public record CustomerDetailDTO(UUID id, String name, String email, String phoneNumber,
+                                List<OrderSummaryDTO> orders) {
+
+    /**
+     * Creates a detail view from a customer summary and its order summaries.
+     *
+     * @param customer the customer summary
+     * @param orders   the customer's order summaries
+     * @return the detail view
+     */
+    public static CustomerDetailDTO of(CustomerSummaryDTO customer, List<OrderSummaryDTO> orders) {
+        return new CustomerDetailDTO(customer.id(), customer.name(), customer.email(),
+                customer.phoneNumber(), orders);
+    }
+}
@@ -0,0 +1,35 @@
+package com.ecommerce.payment.dto;
+
+import com.ecommerce.payment.model.Money;
+
+import java.util.UUID;
+
+/**
+ * One row of the flattened customer/order/product tree.
+ *
+ * <p>Built directly from a JPQL constructor expression in
+ * {@link com.ecommerce.payment.repository.CustomerRepository} that left-joins customers
+ * to their orders and products, so the order and product columns are {@code null} for a
+ * customer without orders or an order without products. Rows are read in
+ * customer/order/product order and folded back into the {@link CustomerDTO} JSON shape
+ * while streaming, without building the tree in memory.</p>
+ *
+ * @param customerId          customer identifier
+ * @param name                customer name
+ * @param email               customer email
+ * @param phoneNumber         customer phone number
+ * @param orderId             order identifier, or {@code null}
+ * @param orderDescription    order description
+ * @param amount              order amount
+ * @param productId           product identifier, or {@code null}
+ * @param productName         product name
+ * @param price               product price
+ * @param productDescription  product description
+ * @param stockQuantity       product stock quantity
+ * @param percentageDiscount  product discount percentage (0-100)
+ */
+public record CustomerGraphRow(UUID customerId, String name, String email, String phoneNumber,
+                               UUID orderId, String orderDescription, Money amount,
+                               UUID productId, String productName, Money price, String productDescription,
+                               Integer stockQuantity, Integer percentageDiscount) {
+}
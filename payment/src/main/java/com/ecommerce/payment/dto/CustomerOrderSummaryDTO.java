@@ -0,0 +1,31 @@
+package com.ecommerce.payment.dto;
+
+import com.ecommerce.payment.model.Money;
+
+import java.time.LocalTime;
+import java.util.UUID;
+
+/**
+ * Flat view of an order together with the id of its customer.
+ *
+ * <p>Built directly from a JPQL constructor expression in
+ * {@link com.ecommerce.payment.repository.OrderRepository}. The owning customer is carried
+ * by id so the orders of several customers read in one query can be grouped per customer.</p>
+ *
+ * @param customerId  identifier of the customer who placed the order
+ * @param id          unique identifier of the order
+ * @param description short description of the order
+ * @param amount      total amount of the order
+ * @param createdAt   creation time of the order
+ */
+public record CustomerOrderSummaryDTO(UUID customerId, UUID id, String description, Money amount, LocalTime createdAt) {
+
+    /**
+     * Returns the order without its customer.
+     *
+     * @return the order summary
+     */
+    public OrderSummaryDTO summary() {
+        return new OrderSummaryDTO(this.id, this.description, this.amount, this.createdAt);
+    }
+}
@@ -0,0 +1,12 @@
+package com.ecommerce.payment.dto;
+
+import java.util.List;
+
+/**
+ * One keyset page of customers.
+ *
+ * @param customers  the customers of the page
+ * @param nextCursor opaque token to request the following page, or {@code null} on the last page
+ */
+public record CustomerSliceDTO(List<CustomerSummaryDTO> customers, String nextCursor) {
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.payment.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Flat list view of a customer.
+ *
+ * <p>Built directly from a JPQL constructor expression in
+ * {@link com.ecommerce.payment.repository.CustomerRepository}, so only these columns
+ * are selected and no {@code Customer} entity is hydrated.</p>
+ *
+ * @param id          unique identifier of the customer
+ * @param name        customer's full name
+ * @param email       customer's email address
+ * @param phoneNumber customer's phone number
+ * @param createdAt   creation timestamp of the customer
+ */
+public record CustomerSummaryDTO(UUID id, String name, String email, String phoneNumber, LocalDateTime createdAt) {
+}
@@ -1,5 +1,6 @@
 package com.ecommerce.payment.dto;
 
+import com.ecommerce.payment.model.Money;
 
 import java.util.ArrayList;
 import java.util.UUID;
@@ -10,7 +11,10 @@ import java.util.List;
  *
  * <p>This DTO is used for transferring order data between layers of the application,
  * including order details such as unique identifier, description, total amount,
- * the associated customer, and the products included in the order.</p>
+ * the identifier of the associated customer, and the products included in the order.</p>
+ *
+ * <p>The customer is referenced by id only so that the DTO graph is a tree:
+ * mapping or serializing an order never walks back into its customer.</p>
  *
  * <p>This class provides a simplified representation of the order entity without
  * JPA annotations, making it suitable for API responses and inter-layer communication.</p>
@@ -28,16 +32,15 @@ public class OrderDTO {
     private String description;
 
     /**
-     * Total amount for the order in the application's currency.
-     * <p>Using {@code double} may be sufficient for some cases, but consider
-     * {@link java.math.BigDecimal} for precise monetary calculations.</p>
+     * Total amount for the order in the application's currency. Computed by the server
+     * from the products; a value sent by the client is ignored.
      */
-    private double amount;
+    private Money amount = Money.ZERO;
 
     /**
-     * Customer who owns the order.
+     * Identifier of the customer who owns the order.
      */
-    private CustomerDTO customer;
+    private UUID customerId;
 
     /**
      * List of products included in the order.
@@ -83,9 +86,9 @@ public class OrderDTO {
     /**
      * Returns the total amount of the order.
      *
-     * @return the amount as a {@code double}
+     * @return the amount
      */
-    public double getAmount() {
+    public Money getAmount() {
         return amount;
     }
 
@@ -94,26 +97,26 @@ public class OrderDTO {
      *
      * @param amount total amount to assign
      */
-    public void setAmount(double amount) {
+    public void setAmount(Money amount) {
         this.amount = amount;
     }
 
     /**
-     * Returns the customer associated with the order.
+     * Returns the identifier of the customer associated with the order.
      *
-     * @return the {@link CustomerDTO} who owns the order
+     * @return the {@link UUID} of the customer who owns the order
      */
-    public CustomerDTO getCustomer() {
-        return customer;
+    public UUID getCustomerId() {
+        return customerId;
     }
 
     /**
-     * Sets the customer associated with the order.
+     * Sets the identifier of the customer associated with the order.
      *
-     * @param customer the {@link CustomerDTO} to associate with this order
+     * @param customerId the {@link UUID} of the customer to associate with this order
      */
-    public void setCustomer(CustomerDTO customer) {
-        this.customer = customer;
+    public void setCustomerId(UUID customerId) {
+        this.customerId = customerId;
     }
 
     /**
@@ -0,0 +1,22 @@
+package com.ecommerce.payment.dto;
+
+import com.ecommerce.payment.model.Money;
+
+import java.time.LocalTime;
+import java.util.UUID;
+
+/**
+ * Flat view of an order as a line of the orders export.
+ *
+ * <p>Built directly from a JPQL constructor expression in
+ * {@link com.ecommerce.payment.repository.OrderRepository}. The owning customer is carried
+ * by id so orders can be reconciled against the customers export.</p>
+ *
+ * @param id          unique identifier of the order
+ * @param customerId  identifier of the customer who placed the order
+ * @param description human-readable description of the order
+ * @param amount      monetary amount of the order
+ * @param createdAt   time of day the order was created
+ */
+public record OrderExportDTO(UUID id, UUID customerId, String description, Money amount, LocalTime createdAt) {
+}
@@ -0,0 +1,31 @@
+package com.ecommerce.payment.dto;
+
+import com.ecommerce.payment.model.Money;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * View of an order together with its product lines.
+ *
+ * @param id          unique identifier of the order
+ * @param description short description of the order
+ * @param amount      total amount of the order
+ * @param customerId  identifier of the customer who owns the order
+ * @param products    product lines of the order
+ */
+public record OrderLinesDTO(UUID id, String description, Money amount, UUID customerId,
+                            List<ProductLineDTO> products) {
+
+    /**
+     * Creates an order view from an order summary and its product lines.
+     *
+     * @param order      the order summary
+     * @param customerId identifier of the customer who owns the order
+     * @param products   the order's product lines
+     * @return the order view
+     */
+    public static OrderLinesDTO of(OrderSummaryDTO order, UUID customerId, List<ProductLineDTO> products) {
+        return new OrderLinesDTO(order.id(), order.description(), order.amount(), customerId, products);
+    }
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.payment.dto;
+
+import com.ecommerce.payment.model.Money;
+
+import java.time.LocalTime;
+import java.util.UUID;
+
+/**
+ * Flat view of an order without its customer or products.
+ *
+ * <p>Built directly from a JPQL constructor expression in
+ * {@link com.ecommerce.payment.repository.OrderRepository}.</p>
+ *
+ * @param id          unique identifier of the order
+ * @param description short description of the order
+ * @param amount      total amount of the order
+ * @param createdAt   creation time of the order
+ */
+public record OrderSummaryDTO(UUID id, String description, Money amount, LocalTime createdAt) {
+}
@@ -0,0 +1,21 @@
+package com.ecommerce.payment.dto;
+
+import com.ecommerce.payment.model.Money;
+
+import java.util.UUID;
+
+/**
+ * Flat view of a product as a line of an order.
+ *
+ * <p>Built directly from a JPQL constructor expression in
+ * {@link com.ecommerce.payment.repository.ProductRepository}. The owning order is
+ * carried by id so lines can be grouped per order without loading the order.</p>
+ *
+ * @param orderId            identifier of the order the line belongs to
+ * @param id                 unique identifier of the product
+ * @param name               human-readable product name
+ * @param price              product price
+ * @param percentageDiscount discount percentage (0-100)
+ */
+public record ProductLineDTO(UUID orderId, UUID id, String name, Money price, int percentageDiscount) {
+}
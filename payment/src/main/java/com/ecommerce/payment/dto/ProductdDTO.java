@@ -1,5 +1,7 @@
 package com.ecommerce.payment.dto;
 
+import com.ecommerce.payment.model.Money;
+
 import java.util.UUID;
 
 /**
@@ -7,8 +9,8 @@ import java.util.UUID;
  *
  * <p>This DTO is used for transferring product data between layers of the application,
  * including product information such as identifier, name, price, description, stock
- * quantity, discount percentage, and the owning order if the product is associated
- * with one.</p>
+ * quantity and discount percentage. The owning order is not referenced: products are
+ * always reached through their {@link OrderDTO}, which keeps the DTO graph acyclic.</p>
  *
  * <p>This class provides a simplified representation of the product entity without
  * JPA annotations, making it suitable for API responses and inter-layer communication.</p>
@@ -27,10 +29,8 @@ public class ProductdDTO {
 
     /**
      * Product price in the application's currency.
-     * <p>Consider using {@link java.math.BigDecimal} for precise monetary
-     * calculations if needed.</p>
      */
-    private double price;
+    private Money price = Money.ZERO;
 
     /**
      * Product description, typically shown to customers.
@@ -47,11 +47,6 @@ public class ProductdDTO {
      */
     private int percentageDiscount;
 
-    /**
-     * Owning order for this product, if any.
-     */
-    private OrderDTO order;
-
     /**
      * Returns the unique identifier for the product.
      *
@@ -91,9 +86,9 @@ public class ProductdDTO {
     /**
      * Returns the product price.
      *
-     * @return the price as a {@code double}
+     * @return the price
      */
-    public double getPrice() {
+    public Money getPrice() {
         return price;
     }
 
@@ -102,7 +97,7 @@ public class ProductdDTO {
      *
      * @param price product price in the application's currency
      */
-    public void setPrice(double price) {
+    public void setPrice(Money price) {
         this.price = price;
     }
 
@@ -159,22 +154,4 @@ public class ProductdDTO {
     public void setPercentageDiscount(int percentageDiscount) {
         this.percentageDiscount = percentageDiscount;
     }
-
-    /**
-     * Returns the order associated with this product.
-     *
-     * @return the {@link OrderDTO} to which this product belongs, or {@code null} if not associated
-     */
-    public OrderDTO getOrder() {
-        return order;
-    }
-
-    /**
-     * Associates this product with an order.
-     *
-     * @param order the {@link OrderDTO} to associate, or {@code null} to disassociate
-     */
-    public void setOrder(OrderDTO order) {
-        this.order = order;
-    }
 }
@@ -4,18 +4,26 @@ package com.ecommerce.payment.error;
  * Exception thrown when a requested customer cannot be found in the system.
  *
  * <p>This checked exception indicates that an operation expected an existing
- * customer record but none was found for the provided identifier. Controllers
- * or service callers should translate this exception into an appropriate
- * client response (for example HTTP 404 Not Found).</p>
+ * customer record but none was found for the provided identifier. It is translated
+ * into HTTP 404 Not Found by {@link com.ecommerce.payment.controller.ApiExceptionHandler}.</p>
+ *
+ * <p>Lookups of unknown ids are frequent and carry no information beyond the fact, so the
+ * exception is a preallocated signal: {@link #INSTANCE} is thrown every time, without a
+ * stack trace, a cause or suppressed exceptions.</p>
  */
-public class CustomerNotFound extends Exception {
+public final class CustomerNotFound extends Exception {
+
+    /**
+     * The exception thrown for every missing customer.
+     */
+    public static final CustomerNotFound INSTANCE = new CustomerNotFound("Customer Not found");
 
     /**
-     * Constructs a new {@code CustomerNotFound} exception with the specified detail message.
+     * Constructs the stackless exception with the specified detail message.
      *
      * @param errorMessage the detail message explaining why the customer was not found
      */
-    public CustomerNotFound(String errorMessage) {
-        super(errorMessage);
+    private CustomerNotFound(String errorMessage) {
+        super(errorMessage, null, false, false);
     }
 }
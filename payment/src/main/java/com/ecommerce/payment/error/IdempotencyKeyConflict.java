@@ -0,0 +1,37 @@
+package com.ecommerce.payment.error;
+
+/**
+ * Exception thrown when an {@code Idempotency-Key} cannot be honoured.
+ *
+ * <p>Raised when a key is reused with a different request body, or when the original
+ * request with the same key is still in progress after the caller has waited for it.
+ * Controllers should translate this exception into HTTP 409 Conflict (or 422 for a
+ * reused key), so the client can fix the key or retry later.</p>
+ */
+public class IdempotencyKeyConflict extends Exception {
+
+    /**
+     * Whether the key was reused for a different request, rather than still in progress.
+     */
+    private final boolean reused;
+
+    /**
+     * Constructs a new {@code IdempotencyKeyConflict} exception.
+     *
+     * @param errorMessage the detail message explaining the conflict
+     * @param reused       {@code true} if the key was reused for a different request
+     */
+    public IdempotencyKeyConflict(String errorMessage, boolean reused) {
+        super(errorMessage);
+        this.reused = reused;
+    }
+
+    /**
+     * Returns whether the key was reused for a different request.
+     *
+     * @return {@code true} for a reused key, {@code false} for a request still in progress
+     */
+    public boolean isReused() {
+        return reused;
+    }
+}
@@ -0,0 +1,38 @@
+package com.ecommerce.payment.error;
+
+import java.util.UUID;
+
+/**
+ * Exception thrown when an order asks for more units of a product than are in stock.
+ *
+ * <p>Unlike the other errors of the service this exception is unchecked, because it is
+ * raised inside the order transaction and must roll it back. Controllers should translate
+ * it into HTTP 409 Conflict.</p>
+ */
+public class InsufficientStock extends RuntimeException {
+
+    /**
+     * Product that is out of stock.
+     */
+    private final UUID productId;
+
+    /**
+     * Constructs a new {@code InsufficientStock} exception.
+     *
+     * @param productId the product that does not have enough stock
+     * @param units     the number of units that were requested
+     */
+    public InsufficientStock(UUID productId, int units) {
+        super("Product " + productId + " does not have " + units + " unit(s) in stock");
+        this.productId = productId;
+    }
+
+    /**
+     * Returns the product that is out of stock.
+     *
+     * @return the product identifier
+     */
+    public UUID getProductId() {
+        return productId;
+    }
+}
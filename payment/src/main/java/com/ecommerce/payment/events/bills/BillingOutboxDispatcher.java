@@ -0,0 +1,233 @@
+package com.ecommerce.payment.events.bills;
+
+import com.ecommerce.payment.model.BillingOutboxEvent;
+import com.ecommerce.payment.model.Order;
+import com.ecommerce.payment.repository.BillingOutboxRepository;
+import com.ecommerce.payment.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background dispatcher that drains the billing outbox.
+ *
+ * <p>{@link com.ecommerce.payment.services.OrderService} only writes a
+ * {@link BillingOutboxEvent} row next to the order; this component delivers it later,
+ * off the request thread, by publishing {@link CustomBillEvent}s to the billing
+ * listeners. Order creation latency is therefore independent of billing latency, and a
+ * crash between commit and delivery only delays billing.</p>
+ *
+ * Contract:
+ * <ul>
+ *   <li>Batches: up to {@code payment.billing.outbox.batch-size} due rows are claimed per
+ *       transaction with {@code FOR UPDATE SKIP LOCKED}, then leased for
+ *       {@code payment.billing.outbox.lease-ms} so other instances leave them alone while
+ *       they are delivered.</li>
+ *   <li>Delivery: the rows of a claimed batch are delivered together, as one event in one
+ *       transaction. If that fails, each row of the batch is delivered again in an event and
+ *       a transaction of its own, so that a row that cannot be billed does not hold back the
+ *       others. Delivery is at-least-once; listeners receive each row's idempotency key to
+ *       discard duplicates.</li>
+ *   <li>Error modes: a row whose own delivery fails is retried with exponential backoff starting at
+ *       {@code payment.billing.outbox.initial-backoff-ms}, capped at
+ *       {@code payment.billing.outbox.max-backoff-ms}. After
+ *       {@code payment.billing.outbox.max-attempts} the row is marked
+ *       {@link BillingOutboxEvent.Status#FAILED} and left for manual inspection.</li>
+ *   <li>Metrics: {@value #EVENTS_METRIC} counts deliveries by {@code outcome}
+ *       ({@code dispatched}, {@code retried}, {@code failed}); {@value #LAG_METRIC} is the
+ *       age of the oldest undelivered row, refreshed after every poll.</li>
+ * </ul>
+ *
+ * @see CustomBillEventListener
+ */
+@Slf4j
+@Component
+public class BillingOutboxDispatcher {
+
+    /** Counter of outbox row deliveries, tagged by {@code outcome}. */
+    public static final String EVENTS_METRIC = "payment.billing.events";
+
+    /** Gauge of the age of the oldest pending outbox row. */
+    public static final String LAG_METRIC = "payment.billing.lag";
+
+    @Autowired
+    private BillingOutboxRepository outboxRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${payment.billing.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${payment.billing.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${payment.billing.outbox.initial-backoff-ms:1000}")
+    private long initialBackoffMs;
+
+    @Value("${payment.billing.outbox.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    @Value("${payment.billing.outbox.lease-ms:60000}")
+    private long leaseMs;
+
+    private Counter dispatched;
+
+    private Counter retried;
+
+    private Counter failed;
+
+    /** Age of the oldest pending row, in milliseconds, as of the last poll. */
+    private final AtomicLong lagMs = new AtomicLong();
+
+    /**
+     * Registers the delivery counters and the lag gauge.
+     */
+    @PostConstruct
+    void registerMetrics() {
+        this.dispatched = deliveries("dispatched");
+        this.retried = deliveries("retried");
+        this.failed = deliveries("failed");
+        TimeGauge.builder(LAG_METRIC, this.lagMs, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Age of the oldest billing request not yet delivered")
+                .register(this.meterRegistry);
+    }
+
+    private Counter deliveries(String outcome) {
+        return Counter.builder(EVENTS_METRIC)
+                .description("Billing events delivered to the billing listeners")
+                .tag("outcome", outcome)
+                .register(this.meterRegistry);
+    }
+
+    /**
+     * Delivers every due outbox row, batch after batch, until a batch comes back short.
+     *
+     * <p>Runs every {@code payment.billing.outbox.poll-interval-ms} milliseconds; can also be
+     * called directly.</p>
+     */
+    @Scheduled(initialDelayString = "${payment.billing.outbox.poll-interval-ms:500}",
+            fixedDelayString = "${payment.billing.outbox.poll-interval-ms:500}")
+    public void dispatchPending() {
+        List<BillingOutboxEvent> batch;
+        do {
+            batch = this.transactionTemplate.execute(status -> claimBatch());
+            if (!batch.isEmpty() && !dispatchBatch(batch)) {
+                batch.forEach(this::dispatch);
+            }
+        } while (batch.size() == this.batchSize);
+        LocalDateTime now = LocalDateTime.now();
+        this.lagMs.set(this.outboxRepository.findOldestPendingCreatedAt()
+                .map(oldest -> Math.max(Duration.between(oldest, now).toMillis(), 0))
+                .orElse(0L));
+    }
+
+    /**
+     * Locks the next due rows and leases them to this dispatcher.
+     */
+    private List<BillingOutboxEvent> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<BillingOutboxEvent> batch = this.outboxRepository.findDue(now, PageRequest.of(0, this.batchSize));
+        LocalDateTime leasedUntil = now.plus(Duration.ofMillis(this.leaseMs));
+        batch.forEach(event -> event.setNextAttemptAt(leasedUntil));
+        return batch;
+    }
+
+    /**
+     * Delivers the rows of a claimed batch to the billing listeners as one event.
+     *
+     * @return {@code true} if the batch was delivered, {@code false} if its rows must be
+     *         delivered one by one
+     */
+    private boolean dispatchBatch(List<BillingOutboxEvent> claimed) {
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> deliver(claimed));
+            this.dispatched.increment(claimed.size());
+            return true;
+        } catch (RuntimeException e) {
+            log.debug("Billing delivery failed for a batch of {} orders, delivering them one by one", claimed.size(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Delivers a single row to the billing listeners and records the outcome.
+     */
+    private void dispatch(BillingOutboxEvent claimed) {
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> deliver(List.of(claimed)));
+            this.dispatched.increment();
+        } catch (RuntimeException e) {
+            log.warn("Billing delivery failed for Order id: {} (attempt {})", claimed.getOrderId(), claimed.getAttempts() + 1, e);
+            this.transactionTemplate.executeWithoutResult(status ->
+                    this.outboxRepository.findById(claimed.getId()).ifPresent(event -> {
+                        LocalDateTime retryAt = nextAttempt(event.getAttempts() + 1);
+                        event.markAttemptFailed(e.getMessage(), retryAt);
+                        (retryAt == null ? this.failed : this.retried).increment();
+                    }));
+        }
+    }
+
+    /**
+     * Publishes one event with the bills of the given rows and marks them dispatched. Must be
+     * called inside a transaction.
+     */
+    private void deliver(List<BillingOutboxEvent> claimed) {
+        List<BillingOutboxEvent> events = new ArrayList<>(claimed.size());
+        this.outboxRepository.findAllById(claimed.stream().map(BillingOutboxEvent::getId).toList()).forEach(events::add);
+        Map<UUID, Order> orders = new HashMap<>();
+        this.orderRepository.findAllById(events.stream().map(BillingOutboxEvent::getOrderId).toList())
+                .forEach(order -> orders.put(order.getId(), order));
+        List<CustomBillEvent.Bill> bills = new ArrayList<>(events.size());
+        for (BillingOutboxEvent event : events) {
+            Order order = orders.get(event.getOrderId());
+            if (order == null) {
+                throw new IllegalStateException("Order " + event.getOrderId() + " no longer exists");
+            }
+            bills.add(new CustomBillEvent.Bill(order, event.getIdempotencyKey()));
+        }
+        this.publisher.publishEvent(new CustomBillEvent(this, bills));
+        LocalDateTime now = LocalDateTime.now();
+        events.forEach(event -> event.markDispatched(now));
+    }
+
+    /**
+     * Returns the time of the next attempt after {@code attempts} failures, or {@code null}
+     * once the maximum number of attempts is reached.
+     */
+    private LocalDateTime nextAttempt(int attempts) {
+        if (attempts >= this.maxAttempts) {
+            return null;
+        }
+        long backoff = this.initialBackoffMs << Math.min(attempts - 1, 30);
+        return LocalDateTime.now().plus(Duration.ofMillis(Math.min(backoff, this.maxBackoffMs)));
+    }
+}
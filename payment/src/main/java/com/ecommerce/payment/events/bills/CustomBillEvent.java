@@ -5,17 +5,26 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.context.ApplicationEvent;
 
+import java.util.List;
+
 /**
- * Event published when an order requires billing.
+ * Event published when orders require billing.
  *
- * <p>This event carries an {@link Order} that should be processed by billing
- * listeners (for example, {@link CustomBillEventListener}). The class is a
+ * <p>This event carries the {@link Bill}s, one per {@link Order}, that should be processed
+ * by billing listeners (for example, {@link CustomBillEventListener}). The class is a
  * lightweight wrapper around Spring's {@link ApplicationEvent} so it can be
  * published through the application eventing system.</p>
  *
+ * <p>Events are published by the {@link BillingOutboxDispatcher} after the orders'
+ * outbox rows have been committed, never directly on the request thread, with one event
+ * for every batch of rows it claims. Delivery is at-least-once, so the same order may be
+ * billed more than once unless listeners pass {@link Bill#idempotencyKey()} to the billing
+ * provider.</p>
+ *
  * Contract:
  * <ul>
- *   <li>Inputs: a non-null {@link Order} instance and the event source (publisher).</li>
+ *   <li>Inputs: the event source (publisher) and a non-empty list of bills, each with a
+ *       non-null {@link Order} instance and the idempotency key of its billing request.</li>
  *   <li>Outputs: none by itself — listeners perform side effects such as
  *       sending invoices or charging a payment provider.</li>
  *   <li>Error modes: consumers of this event should validate the order; the
@@ -25,7 +34,7 @@ import org.springframework.context.ApplicationEvent;
  *
  * Usage example:
  * <pre>
- * // eventPublisher.publishEvent(new CustomBillEvent(this, order));
+ * // eventPublisher.publishEvent(new CustomBillEvent(this, List.of(new CustomBillEvent.Bill(order, "bill:" + order.getId()))));
  * </pre>
  *
  * @see com.ecommerce.payment.events.bills.CustomBillEventListener
@@ -35,21 +44,29 @@ import org.springframework.context.ApplicationEvent;
 @Setter
 public class CustomBillEvent extends ApplicationEvent {
 
-    private final Order order;
+    private final List<Bill> bills;
 
     /**
-     * Create a new billing event for the supplied order.
+     * Create a new billing event for the supplied bills.
      *
      * <p>The {@code source} parameter should typically be the publishing
-     * component (for example, a service). The {@code order} parameter is the
-     * order to be billed and should be non-null; listeners rely on its presence
-     * to perform billing operations.</p>
+     * component (for example, a service). Each bill carries the order to be billed,
+     * which listeners rely on to perform billing operations.</p>
      *
      * @param source the object on which the event initially occurred (typically the publisher)
-     * @param order  the order to bill; expected to be non-null and contain at least an id
+     * @param bills  the bills to send, in delivery order; expected to be non-empty
      */
-    public CustomBillEvent(Object source, Order order) {
+    public CustomBillEvent(Object source, List<Bill> bills) {
         super(source);
-        this.order = order;
+        this.bills = List.copyOf(bills);
+    }
+
+    /**
+     * A billing request for one order.
+     *
+     * @param order          the order to bill; expected to be non-null and contain at least an id
+     * @param idempotencyKey key identifying this billing request across redeliveries
+     */
+    public record Bill(Order order, String idempotencyKey) {
     }
 }
@@ -14,17 +14,23 @@ import org.springframework.stereotype.Component;
  * a bill was sent to the customer. Replace the logging calls with real billing
  * provider integrations when moving to production.</p>
  *
+ * <p>The listener runs on the {@link BillingOutboxDispatcher} thread, not on the HTTP
+ * request thread, so slow billing calls do not delay order creation. Calls to the billing
+ * provider must carry {@link CustomBillEvent.Bill#idempotencyKey()}, since an event can be
+ * delivered more than once. An event carries every bill of a dispatcher batch, so that a
+ * provider with a bulk API can be called once per batch.</p>
+ *
  * Contract:
  * <ul>
- *   <li>Inputs: {@link CustomBillEvent} containing an order to bill.</li>
+ *   <li>Inputs: {@link CustomBillEvent} containing the orders to bill.</li>
  *   <li>Outputs: informational logs indicating the handling result.</li>
- *   <li>Error modes: any runtime exception thrown during processing will
- *       propagate; the current implementation does not attempt retries.</li>
+ *   <li>Error modes: any runtime exception thrown during processing propagates to the
+ *       {@link BillingOutboxDispatcher}, which retries the delivery with backoff.</li>
  * </ul>
  *
  * Usage example:
  * <pre>
- * // eventPublisher.publishEvent(new CustomBillEvent(this, order));
+ * // eventPublisher.publishEvent(new CustomBillEvent(this, List.of(new CustomBillEvent.Bill(order, "bill:" + order.getId()))));
  * </pre>
  *
  * @see com.ecommerce.payment.events.bills.CustomBillEvent
@@ -38,18 +44,21 @@ public class CustomBillEventListener implements ApplicationListener<CustomBillEv
      * Handle the incoming {@link CustomBillEvent}.
      *
      * <p>The method logs the receipt of the event and simulates sending a bill to
-     * the customer associated with the order contained in the event. The event
-     * argument is expected to provide access to an order via {@code event.getOrder()}.
-     *</p>
+     * the customer of every order contained in the event. The event argument is
+     * expected to provide its bills via {@code event.getBills()}.</p>
      *
-     * @param event the billing event to handle; must not be {@code null}. The
-     *              event should contain a fully populated order with an id
-     *              accessible via {@code event.getOrder().getId()}.
+     * @param event the billing event to handle; must not be {@code null}. Every
+     *              bill should contain a fully populated order with an id
+     *              accessible via {@code bill.order().getId()}.
      */
     @Override
     public void onApplicationEvent(CustomBillEvent event) {
-        log.info("Received CustomBillEvent for Order ID: {}", event.getOrder().getId());
-        // We can implement a mock billing process here
-        log.info("Bill sent to the customer for Order ID: {}", event.getOrder().getId());
+        log.debug("Received CustomBillEvent for {} orders", event.getBills().size());
+        // We can implement a mock billing process here, sending the whole batch to the provider
+        // with the idempotency key of each bill
+        for (CustomBillEvent.Bill bill : event.getBills()) {
+            log.info("Bill sent to the customer for Order ID: {} (idempotency key {})",
+                    bill.order().getId(), bill.idempotencyKey());
+        }
     }
 }
@@ -3,12 +3,28 @@ package com.ecommerce.payment.mappers;
 
 import com.ecommerce.payment.dto.CustomerDTO;
 import com.ecommerce.payment.model.Customer;
+import org.mapstruct.AfterMapping;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", uses = OrderMapper.class)
 public interface CustomerMapper {
 
     CustomerDTO customerToCustomerDTO(Customer customer);
 
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "status", ignore = true)
     Customer customerDTOToCustomer(CustomerDTO customerDTO);
+
+    /**
+     * Points every mapped order back to its owning customer, since the DTO side
+     * only holds the customer id.
+     */
+    @AfterMapping
+    default void linkOrders(@MappingTarget Customer customer) {
+        if (customer.getOrders() != null) {
+            customer.getOrders().forEach(order -> order.setCustomer(customer));
+        }
+    }
 }
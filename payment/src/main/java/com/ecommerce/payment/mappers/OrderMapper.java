@@ -2,16 +2,34 @@ package com.ecommerce.payment.mappers;
 
 import com.ecommerce.payment.dto.OrderDTO;
 import com.ecommerce.payment.model.Order;
+import org.mapstruct.AfterMapping;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
 
 import java.util.List;
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", uses = ProductMapper.class)
 public interface OrderMapper {
 
+    @Mapping(target = "customerId", source = "customer.id")
     public OrderDTO orderToOrderDTO(Order order);
+
+    @Mapping(target = "customer.id", source = "customerId")
+    @Mapping(target = "createdAt", ignore = true)
     public Order orderDTOToOrder(OrderDTO orderDTO);
 
     List<OrderDTO> ordersToOrderDTOs(List<Order> orders);
     List<Order> orderDTOsToOrders(List<OrderDTO> orderDTOs);
+
+    /**
+     * Points every mapped product back to its owning order, since the DTO side
+     * only holds the forward reference.
+     */
+    @AfterMapping
+    default void linkProducts(@MappingTarget Order order) {
+        if (order.getProducts() != null) {
+            order.getProducts().forEach(product -> product.setOrder(order));
+        }
+    }
 }
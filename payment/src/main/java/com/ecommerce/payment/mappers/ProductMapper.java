@@ -3,10 +3,15 @@ package com.ecommerce.payment.mappers;
 import com.ecommerce.payment.dto.ProductdDTO;
 import com.ecommerce.payment.model.Product;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 @Mapper(componentModel = "spring")
 public interface ProductMapper {
 
     public ProductdDTO productToProductDTO(Product product);
+
+    @Mapping(target = "order", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     public Product productDTOToProduct(ProductdDTO productDTO);
 }
@@ -0,0 +1,230 @@
+package com.ecommerce.payment.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UuidGenerator;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Pending billing request for an order, stored in the transactional outbox.
+ *
+ * <p>A row is inserted in the same transaction as its {@link Order}, so the billing
+ * request is durable exactly when the order is. The
+ * {@link com.ecommerce.payment.events.bills.BillingOutboxDispatcher} later drains pending
+ * rows and delivers them to the billing listeners, retrying with exponential backoff.</p>
+ *
+ * <p>Delivery is at-least-once. The {@code idempotencyKey} is unique per order and is
+ * handed to the listeners so the billing provider can discard redeliveries.</p>
+ */
+@Entity
+@Table(name = "billing_outbox",
+        indexes = @Index(name = "idx_billing_outbox_due", columnList = "status, next_attempt_at"))
+public class BillingOutboxEvent {
+
+    /**
+     * Delivery state of an outbox row.
+     */
+    public enum Status {
+        /** Waiting to be delivered, possibly after failed attempts. */
+        PENDING,
+        /** Delivered to every billing listener. */
+        DISPATCHED,
+        /** Gave up after the maximum number of attempts. */
+        FAILED
+    }
+
+    /**
+     * Unique identifier for the outbox row. Automatically generated as a time-ordered
+     * {@link UUID} by {@link TimeOrderedUuidGenerator}.
+     */
+    @Id
+    @UuidGenerator(algorithm = TimeOrderedUuidGenerator.class)
+    private UUID id;
+
+    /**
+     * Identifier of the order to bill.
+     */
+    @Column(name = "order_id", nullable = false)
+    private UUID orderId;
+
+    /**
+     * Key the billing provider uses to discard duplicate deliveries.
+     */
+    @Column(name = "idempotency_key", nullable = false, unique = true)
+    private String idempotencyKey;
+
+    /**
+     * Current delivery state.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.PENDING;
+
+    /**
+     * Number of delivery attempts made so far.
+     */
+    private int attempts;
+
+    /**
+     * Earliest time of the next delivery attempt. Also used as a lease while a
+     * dispatcher is delivering the row.
+     */
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    /**
+     * Message of the last delivery failure, if any.
+     */
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    /**
+     * Timestamp when the row was created.
+     */
+    @CreationTimestamp
+    @Column(updatable = false, name = "created_at")
+    private LocalDateTime createdAt;
+
+    /**
+     * Timestamp when the row was delivered, or {@code null} while pending.
+     */
+    @Column(name = "dispatched_at")
+    private LocalDateTime dispatchedAt;
+
+    /**
+     * Required by JPA.
+     */
+    protected BillingOutboxEvent() {
+    }
+
+    /**
+     * Creates a pending outbox row for the given order, due immediately.
+     *
+     * @param order the order to bill; must already have an id
+     */
+    public BillingOutboxEvent(Order order) {
+        this.orderId = order.getId();
+        this.idempotencyKey = "bill:" + order.getId();
+        this.nextAttemptAt = LocalDateTime.now();
+    }
+
+    /**
+     * Marks the row as delivered.
+     *
+     * @param now delivery time
+     */
+    public void markDispatched(LocalDateTime now) {
+        this.status = Status.DISPATCHED;
+        this.dispatchedAt = now;
+        this.lastError = null;
+    }
+
+    /**
+     * Records a failed delivery attempt and schedules the next one, or gives up if
+     * {@code retryAt} is {@code null}.
+     *
+     * @param error   message describing the failure
+     * @param retryAt time of the next attempt, or {@code null} to mark the row as failed
+     */
+    public void markAttemptFailed(String error, LocalDateTime retryAt) {
+        this.attempts++;
+        this.lastError = error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+        if (retryAt == null) {
+            this.status = Status.FAILED;
+        } else {
+            this.nextAttemptAt = retryAt;
+        }
+    }
+
+    /**
+     * Returns the unique identifier of the outbox row.
+     *
+     * @return the {@link UUID} of the row
+     */
+    public UUID getId() {
+        return id;
+    }
+
+    /**
+     * Returns the identifier of the order to bill.
+     *
+     * @return the order {@link UUID}
+     */
+    public UUID getOrderId() {
+        return orderId;
+    }
+
+    /**
+     * Returns the idempotency key of the billing request.
+     *
+     * @return the key as a {@link String}
+     */
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    /**
+     * Returns the current delivery state.
+     *
+     * @return the {@link Status}
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the number of delivery attempts made so far.
+     *
+     * @return attempts as an {@code int}
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Returns the earliest time of the next delivery attempt.
+     *
+     * @return the time as {@link LocalDateTime}
+     */
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    /**
+     * Sets the earliest time of the next delivery attempt.
+     *
+     * @param nextAttemptAt the time to assign
+     */
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    /**
+     * Returns the message of the last delivery failure.
+     *
+     * @return the message, or {@code null} if the last attempt did not fail
+     */
+    public String getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Returns the creation timestamp of the row.
+     *
+     * @return creation time as {@link LocalDateTime}
+     */
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Returns the delivery timestamp of the row.
+     *
+     * @return delivery time as {@link LocalDateTime}, or {@code null} if not delivered
+     */
+    public LocalDateTime getDispatchedAt() {
+        return dispatchedAt;
+    }
+}
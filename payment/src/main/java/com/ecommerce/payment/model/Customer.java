@@ -1,7 +1,12 @@
 package com.ecommerce.payment.model;
 
 import jakarta.persistence.*;
+import com.ecommerce.payment.services.CustomerIdFilterListener;
+import com.ecommerce.payment.services.CustomerSearchIndexListener;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.annotations.UuidGenerator;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -18,15 +23,38 @@ import java.util.List;
  * <ul>
  *   <li>{@code @OneToMany} to {@link Order} mapped by {@code customer} with cascade {@link CascadeType#ALL}.</li>
  * </ul>
+ *
+ * <p>Fetch plans: the {@value #GRAPH_ORDERS} entity graph fetch-joins the orders
+ * collection for endpoints that render them. When the collection is loaded lazily
+ * instead it is batch-fetched, so a page of customers never issues one query per
+ * customer.</p>
+ *
+ * <p>The indexes declared here mirror the Flyway migrations. They serve the keyset pages,
+ * ordered by creation time, and the refreshes of the search index, by last write time.</p>
+ *
+ * <p>Customers written through JPA are applied to the in-memory search index by
+ * {@link CustomerSearchIndexListener}, and the identifiers of inserted ones are added to the
+ * id filter by {@link CustomerIdFilterListener}.</p>
  */
 @Entity
+@EntityListeners({CustomerSearchIndexListener.class, CustomerIdFilterListener.class})
+@Table(indexes = {
+        @Index(name = "idx_customer_created_at", columnList = "created_at, id"),
+        @Index(name = "idx_customer_updated_at", columnList = "updated_at")})
+@NamedEntityGraph(name = Customer.GRAPH_ORDERS, attributeNodes = @NamedAttributeNode("orders"))
 public class Customer {
 
     /**
-     * Unique identifier for the customer. Automatically generated as a {@link UUID}.
+     * Name of the entity graph that fetches the customer together with its orders.
+     */
+    public static final String GRAPH_ORDERS = "Customer.orders";
+
+    /**
+     * Unique identifier for the customer. Automatically generated as a time-ordered
+     * {@link UUID} by {@link TimeOrderedUuidGenerator}.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidGenerator(algorithm = TimeOrderedUuidGenerator.class)
     private UUID id;
 
     /**
@@ -51,6 +79,14 @@ public class Customer {
     @Column(updatable = false, name="created_at")
     private LocalDateTime createdAt;
 
+    /**
+     * Timestamp of the last write of the customer. Set on every JPA insert and update, and by
+     * the database for writes made outside of JPA.
+     */
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     /**
      * Active/inactive flag for the customer account.
      */
@@ -60,8 +96,10 @@ public class Customer {
     /**
      * Orders associated with this customer. One-to-many relation with full cascade
      * so persistence/removal operations are propagated to related orders.
+     * Lazy initialization is batched across up to {@code 100} customers per query.
      */
     @OneToMany(mappedBy="customer", cascade = CascadeType.ALL)
+    @BatchSize(size = 100)
     private List<Order> orders = new ArrayList<>();
 
 
@@ -155,6 +193,15 @@ public class Customer {
         this.createdAt = createdAt;
     }
 
+    /**
+     * Returns the timestamp of the last write of the customer.
+     *
+     * @return last write time as {@link LocalDateTime}
+     */
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
     /**
      * Returns the status of the customer account.
      *
@@ -0,0 +1,153 @@
+package com.ecommerce.payment.model;
+
+import jakarta.persistence.*;
+import org.hibernate.Length;
+import org.hibernate.annotations.CreationTimestamp;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Stored result of an order creation submitted with an {@code Idempotency-Key}.
+ *
+ * <p>A row is inserted in the same transaction as the order it describes, so a key is
+ * recorded exactly when its order exists. The primary key on the client key also makes
+ * concurrent submissions of the same key on different instances collide at commit, leaving
+ * a single order.</p>
+ *
+ * <p>The response is kept serialized so replays are answered from this row alone. Rows
+ * older than {@code payment.idempotency.ttl} are purged by
+ * {@link com.ecommerce.payment.services.IdempotencyService}.</p>
+ */
+@Entity
+@Table(name = "idempotency_record",
+        indexes = @Index(name = "idx_idempotency_record_created_at", columnList = "created_at"))
+public class IdempotencyRecord implements Persistable<String> {
+
+    /**
+     * Key chosen by the client.
+     */
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String key;
+
+    /**
+     * SHA-256 of the request body, to reject a key reused for a different request.
+     */
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    /**
+     * Identifier of the order created for the key.
+     */
+    @Column(name = "order_id", nullable = false)
+    private UUID orderId;
+
+    /**
+     * JSON of the response returned for the key. Up to 4 GB ({@code LONGTEXT} on MySQL).
+     */
+    @Lob
+    @Column(nullable = false, length = Length.LONG32)
+    private String response;
+
+    /**
+     * Timestamp when the row was created.
+     */
+    @CreationTimestamp
+    @Column(updatable = false, name = "created_at")
+    private LocalDateTime createdAt;
+
+    /**
+     * Whether the row has not been stored yet. The key is assigned by the client, so
+     * without this flag saving a new record would merge it over an existing row instead
+     * of failing on the duplicate key.
+     */
+    @Transient
+    private boolean isNew = true;
+
+    /**
+     * Required by JPA.
+     */
+    protected IdempotencyRecord() {
+    }
+
+    /**
+     * Creates the record of a completed request.
+     *
+     * @param key         key chosen by the client
+     * @param requestHash SHA-256 of the request body
+     * @param orderId     identifier of the created order
+     * @param response    JSON of the response
+     */
+    public IdempotencyRecord(String key, String requestHash, UUID orderId, String response) {
+        this.key = key;
+        this.requestHash = requestHash;
+        this.orderId = orderId;
+        this.response = response;
+    }
+
+    /**
+     * Marks the record as stored once it has been persisted or loaded.
+     */
+    @PostPersist
+    @PostLoad
+    void markStored() {
+        this.isNew = false;
+    }
+
+    @Override
+    public String getId() {
+        return key;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    /**
+     * Returns the key chosen by the client.
+     *
+     * @return the key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the SHA-256 of the request body.
+     *
+     * @return the hex-encoded hash
+     */
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    /**
+     * Returns the identifier of the order created for the key.
+     *
+     * @return the order id
+     */
+    public UUID getOrderId() {
+        return orderId;
+    }
+
+    /**
+     * Returns the JSON of the response returned for the key.
+     *
+     * @return the response
+     */
+    public String getResponse() {
+        return response;
+    }
+
+    /**
+     * Returns the creation timestamp of the row.
+     *
+     * @return the creation time
+     */
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
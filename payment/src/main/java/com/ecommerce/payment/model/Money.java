@@ -0,0 +1,181 @@
+package com.ecommerce.payment.model;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.DeserializationContext;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueDeserializer;
+import tools.jackson.databind.ValueSerializer;
+import tools.jackson.databind.annotation.JsonDeserialize;
+import tools.jackson.databind.annotation.JsonSerialize;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Exact amount of money in the application's currency, held as a {@code long} number of
+ * minor units (cents).
+ *
+ * <p>Arithmetic is done on the {@code long} and never allocates intermediate values, so it
+ * is exact and cheap; {@link BigDecimal} is only used at the edges (JSON, database). An
+ * amount has at most {@value #SCALE} decimal places: more precise inputs are rejected
+ * rather than silently rounded.</p>
+ *
+ * <p>Stored as {@code DECIMAL(19, 2)} through {@link MoneyConverter} and written to JSON as
+ * a decimal number with two places ({@code 12.50}). JSON input may be a number or a
+ * string.</p>
+ *
+ * @param minorUnits the amount in cents
+ */
+@JsonSerialize(using = Money.Serializer.class)
+@JsonDeserialize(using = Money.Deserializer.class)
+public record Money(long minorUnits) implements Comparable<Money>, Serializable {
+
+    /** Number of decimal places of an amount. */
+    public static final int SCALE = 2;
+
+    /** Zero. */
+    public static final Money ZERO = new Money(0);
+
+    /** Minor units per major unit. */
+    private static final long MINOR_PER_MAJOR = 100;
+
+    /**
+     * Returns the amount of the given number of cents.
+     *
+     * @param minorUnits the amount in cents
+     * @return the amount
+     */
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    /**
+     * Returns the amount of a decimal value.
+     *
+     * @param amount the amount in major units, with at most {@value #SCALE} decimal places
+     * @return the amount
+     * @throws IllegalArgumentException if the amount has more decimal places or does not fit in a {@code long}
+     */
+    public static Money of(BigDecimal amount) throws IllegalArgumentException {
+        try {
+            return ofMinor(amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Invalid amount: " + amount.toPlainString(), e);
+        }
+    }
+
+    /**
+     * Returns the amount of a decimal string such as {@code "12.50"}.
+     *
+     * @param amount the amount in major units
+     * @return the amount
+     * @throws IllegalArgumentException if the string is not a valid amount
+     */
+    public static Money parse(String amount) throws IllegalArgumentException {
+        return of(new BigDecimal(amount.trim()));
+    }
+
+    /**
+     * Returns the sum of this amount and another.
+     *
+     * @param other amount to add
+     * @return the sum
+     * @throws ArithmeticException on overflow
+     */
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(this.minorUnits, other.minorUnits));
+    }
+
+    /**
+     * Returns this amount reduced by a percentage, rounded half up to the cent.
+     *
+     * @param percentage discount percentage, between 0 and 100
+     * @return the discounted amount
+     * @throws IllegalArgumentException if the percentage is out of range
+     */
+    public Money discountedBy(int percentage) {
+        return ofMinor(discountMinor(this.minorUnits, percentage));
+    }
+
+    /**
+     * Applies a percentage discount to an amount in cents, rounding half up to the cent.
+     * Allocation-free form of {@link #discountedBy(int)}.
+     *
+     * @param minorUnits amount in cents, not negative
+     * @param percentage discount percentage, between 0 and 100
+     * @return the discounted amount in cents
+     * @throws IllegalArgumentException if the percentage is out of range
+     */
+    public static long discountMinor(long minorUnits, int percentage) {
+        if (percentage < 0 || percentage > 100) {
+            throw new IllegalArgumentException("Discount must be between 0 and 100: " + percentage);
+        }
+        return (Math.multiplyExact(minorUnits, 100 - percentage) + 50) / 100;
+    }
+
+    /**
+     * Returns whether this amount is below zero.
+     *
+     * @return {@code true} if negative
+     */
+    public boolean isNegative() {
+        return this.minorUnits < 0;
+    }
+
+    /**
+     * Returns this amount as a decimal with {@value #SCALE} places.
+     *
+     * @return the amount in major units
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(this.minorUnits, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(this.minorUnits, other.minorUnits);
+    }
+
+    /**
+     * Returns the amount in major units with {@value #SCALE} places, e.g. {@code 12.50}.
+     */
+    @Override
+    public String toString() {
+        long major = this.minorUnits / MINOR_PER_MAJOR;
+        long minor = Math.abs(this.minorUnits % MINOR_PER_MAJOR);
+        String sign = this.minorUnits < 0 && major == 0 ? "-" : "";
+        return sign + major + (minor < 10 ? ".0" : ".") + minor;
+    }
+
+    /**
+     * Writes an amount as a JSON decimal number.
+     */
+    public static class Serializer extends ValueSerializer<Money> {
+
+        @Override
+        public void serialize(Money value, JsonGenerator generator, SerializationContext context) {
+            generator.writeNumber(value.toString());
+        }
+    }
+
+    /**
+     * Reads an amount from a JSON number or string.
+     */
+    public static class Deserializer extends ValueDeserializer<Money> {
+
+        @Override
+        public Money deserialize(JsonParser parser, DeserializationContext context) {
+            try {
+                if (parser.currentToken() == JsonToken.VALUE_STRING) {
+                    return Money.parse(parser.getString());
+                }
+                return Money.of(parser.getDecimalValue());
+            } catch (IllegalArgumentException e) {
+                return (Money) context.handleWeirdStringValue(Money.class, parser.getString(), "%s", e.getMessage());
+            }
+        }
+    }
+}
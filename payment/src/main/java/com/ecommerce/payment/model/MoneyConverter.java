@@ -0,0 +1,28 @@
+package com.ecommerce.payment.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Stores {@link Money} attributes as {@code DECIMAL} values in major units.
+ *
+ * <p>Applied automatically to every {@link Money} attribute. Reading rounds to the cent,
+ * so columns created with a floating-point type before amounts were exact are read as
+ * the nearest amount instead of failing.</p>
+ */
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money money) {
+        return money == null ? null : money.toBigDecimal();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(BigDecimal value) {
+        return value == null ? null : Money.of(value.setScale(Money.SCALE, RoundingMode.HALF_EVEN));
+    }
+}
@@ -2,7 +2,9 @@ package com.ecommerce.payment.model;
 
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UuidGenerator;
 
 import java.time.LocalTime;
 import java.util.ArrayList;
@@ -22,15 +24,20 @@ import java.util.UUID;
  *   <li>{@code @OneToMany} to {@link Product} with cascade {@link CascadeType#ALL} and
  *       inverse mapping via the {@code order} property on the {@link Product} entity</li>
  * </ul>
+ *
+ * <p>The schema is defined by the Flyway migrations in {@code db/migration}; the index declared
+ * here mirrors them. It covers the order summaries of a customer.</p>
  */
 @Entity
+@Table(indexes = @Index(name = "idx_order_customer_id", columnList = "customer_id, created_at, amount, description"))
 public class Order {
 
     /**
-     * Unique identifier for the order. Automatically generated as a {@link UUID}.
+     * Unique identifier for the order. Automatically generated as a time-ordered
+     * {@link UUID} by {@link TimeOrderedUuidGenerator}.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidGenerator(algorithm = TimeOrderedUuidGenerator.class)
     private UUID id;
 
 
@@ -40,11 +47,11 @@ public class Order {
     private String description;
 
     /**
-     * Total amount for the order in the application's currency.
-     * <p>Using {@code double} may be sufficient for some cases, but consider
-     * {@link java.math.BigDecimal} for precise monetary calculations.</p>
+     * Total amount for the order in the application's currency, computed from its
+     * products by {@link com.ecommerce.payment.services.OrderTotalCalculator}.
      */
-    private double amount;
+    @Column(precision = 19, scale = Money.SCALE)
+    private Money amount = Money.ZERO;
 
     /**
      * Time when the order was created. Currently stored as {@link LocalTime}.
@@ -66,8 +73,12 @@ public class Order {
     /**
      * List of products included in the order. One-to-many relation with full
      * cascade to propagate persistence/removal operations.
+     * Lazy initialization is batched across up to {@code 100} orders per query. The
+     * collection is not kept in the second-level cache: order lines are written once, and
+     * every stock update on {@link Product} would invalidate the cached collections anyway.
      */
     @OneToMany(mappedBy="order", cascade = CascadeType.ALL)
+    @BatchSize(size = 100)
     private List<Product> products = new ArrayList<>();
 
 
@@ -110,9 +121,9 @@ public class Order {
     /**
      * Returns the total amount of the order.
      *
-     * @return the amount as a {@code double}
+     * @return the amount
      */
-    public double getAmount() {
+    public Money getAmount() {
         return amount;
     }
 
@@ -121,7 +132,7 @@ public class Order {
      *
      * @param amount total amount to assign
      */
-    public void setAmount(double amount) {
+    public void setAmount(Money amount) {
         this.amount = amount;
     }
 
@@ -1,7 +1,10 @@
 package com.ecommerce.payment.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UuidGenerator;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -17,15 +20,35 @@ import java.util.UUID;
  * <ul>
  *   <li>{@code @ManyToOne} to {@link Order} with a foreign key column {@code order_id}.</li>
  * </ul>
+ *
+ * <p>Catalog fields change rarely while products are read for every order mapping, so
+ * instances are kept in the {@value #CACHE_REGION} second-level cache region.</p>
+ *
+ * <p>A product without an order is a catalog product, whose {@code stockQuantity} is
+ * reserved by the orders referencing it (see
+ * {@link com.ecommerce.payment.services.StockReservationService}). Stock reservations
+ * increment {@link #getVersion() version}, so a stale copy of the product can never be
+ * saved over a decremented stock.</p>
+ *
+ * <p>The index declared here mirrors the Flyway migrations and covers the order line
+ * projection.</p>
  */
 @Entity
+@Table(indexes = @Index(name = "idx_product_order_id", columnList = "order_id, name, price, percentageDiscount"))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Product.CACHE_REGION)
 public class Product {
 
     /**
-     * Unique identifier for the product. Automatically generated as a {@link UUID}.
+     * Second-level cache region holding {@code Product} instances.
+     */
+    public static final String CACHE_REGION = "product";
+
+    /**
+     * Unique identifier for the product. Automatically generated as a time-ordered
+     * {@link UUID} by {@link TimeOrderedUuidGenerator}.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidGenerator(algorithm = TimeOrderedUuidGenerator.class)
     private UUID id;
 
     /**
@@ -35,10 +58,9 @@ public class Product {
 
     /**
      * Product price in the application's currency.
-     * <p>Consider using {@link java.math.BigDecimal} for precise monetary
-     * calculations if needed.</p>
      */
-    private double price;
+    @Column(precision = 19, scale = Money.SCALE)
+    private Money price = Money.ZERO;
 
     /**
      * Product description, typically shown to customers.
@@ -62,6 +84,13 @@ public class Product {
     @Column(updatable = false, name="created_at")
     private LocalDateTime createdAt;
 
+    /**
+     * Optimistic lock version, incremented by every update including stock reservations.
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     /**
      * Owning order for this product, if any. Many-to-one relation to {@link Order}.
      */
@@ -93,7 +122,7 @@ public class Product {
      *
      * @param price product price in the application's currency
      */
-    public void setPrice(double price) {
+    public void setPrice(Money price) {
         this.price = price;
     }
 
@@ -163,9 +192,9 @@ public class Product {
     /**
      * Returns the product price.
      *
-     * @return the price as a {@code double}
+     * @return the price
      */
-    public double getPrice() {
+    public Money getPrice() {
         return price;
     }
 
@@ -205,6 +234,15 @@ public class Product {
         return createdAt;
     }
 
+    /**
+     * Returns the optimistic lock version of the product.
+     *
+     * @return the version, or {@code null} if the product was never stored
+     */
+    public Long getVersion() {
+        return version;
+    }
+
     /**
      * Returns the order associated with this product, if any.
      *
@@ -0,0 +1,52 @@
+package com.ecommerce.payment.repository;
+
+import com.ecommerce.payment.model.BillingOutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface BillingOutboxRepository extends CrudRepository<BillingOutboxEvent, UUID> {
+
+    /**
+     * Locks and returns the oldest pending rows that are due at {@code now}.
+     *
+     * <p>Rows locked by another dispatcher are skipped ({@code FOR UPDATE SKIP LOCKED}),
+     * so several instances can drain the outbox concurrently. Must be called inside a
+     * transaction.</p>
+     *
+     * @param now      current time
+     * @param pageable page request carrying the batch size
+     * @return the claimed rows, oldest first
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select e from BillingOutboxEvent e where e.status = com.ecommerce.payment.model.BillingOutboxEvent.Status.PENDING"
+            + " and e.nextAttemptAt <= :now order by e.nextAttemptAt")
+    List<BillingOutboxEvent> findDue(LocalDateTime now, Pageable pageable);
+
+    /**
+     * Returns the outbox row of an order.
+     *
+     * @param orderId order identifier
+     * @return the row, or {@link Optional#empty()} if the order has none
+     */
+    Optional<BillingOutboxEvent> findByOrderId(UUID orderId);
+
+    /**
+     * Returns the creation time of the oldest row still waiting for delivery.
+     *
+     * @return the oldest pending creation time, or {@link Optional#empty()} if nothing is pending
+     */
+    @Query("select min(e.createdAt) from BillingOutboxEvent e"
+            + " where e.status = com.ecommerce.payment.model.BillingOutboxEvent.Status.PENDING")
+    Optional<LocalDateTime> findOldestPendingCreatedAt();
+}
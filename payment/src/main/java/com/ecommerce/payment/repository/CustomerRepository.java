@@ -1,9 +1,183 @@
 package com.ecommerce.payment.repository;
 
+import com.ecommerce.payment.dto.CustomerGraphRow;
+import com.ecommerce.payment.dto.CustomerSummaryDTO;
 import com.ecommerce.payment.model.Customer;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+/**
+ * Repository for {@link Customer} entities.
+ *
+ * <p>Besides the inherited CRUD operations it exposes the fetch plans used by the
+ * customer endpoints. Listing a page is split in two steps so that pagination is
+ * applied to customer rows only and never to the rows of a collection join:</p>
+ * <ol>
+ *   <li>{@link #findIds(Pageable)} selects the identifiers of the requested page.</li>
+ *   <li>{@link #findByIdIn(Collection)} loads those customers with their orders using
+ *       the {@value Customer#GRAPH_ORDERS} entity graph.</li>
+ * </ol>
+ * <p>Products of the loaded orders are then initialized in batches through
+ * {@code @BatchSize} on {@code Order.products}.</p>
+ *
+ * <p>Views that do not need entities are read as projections, selecting only the
+ * columns of the target DTO. {@link #streamGraphRows(Collection)} streams the whole tree
+ * of a page as flat rows for responses that are written while they are read.</p>
+ */
 public interface CustomerRepository extends JpaRepository<Customer, UUID> {
+
+    /** Rows fetched per round trip by the streaming queries. */
+    int STREAM_FETCH_SIZE = 1000;
+
+    /**
+     * Returns one page of customer identifiers. Returned as a {@link Slice} so no
+     * count query is issued.
+     *
+     * @param pageable page request, including the sort order
+     * @return the page of identifiers
+     */
+    @Query("select c.id from Customer c")
+    Slice<UUID> findIds(Pageable pageable);
+
+    /**
+     * Loads the given customers together with their orders in a single query.
+     *
+     * @param ids customer identifiers to load
+     * @return the matching customers, in no particular order
+     */
+    @EntityGraph(Customer.GRAPH_ORDERS)
+    List<Customer> findByIdIn(Collection<UUID> ids);
+
+    /**
+     * Streams the customer/order/product tree of the given customers as flat rows,
+     * ordered by customer, order and product identifier.
+     *
+     * <p>Rows are fetched {@value #STREAM_FETCH_SIZE} at a time (a server-side cursor on
+     * MySQL with {@code useCursorFetch=true}) and are not managed, so memory use does not
+     * depend on how many rows the tree has. The stream must be consumed and closed inside
+     * a transaction.</p>
+     *
+     * @param ids customer identifiers
+     * @return the rows of the tree
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query("select new com.ecommerce.payment.dto.CustomerGraphRow(c.id, c.name, c.email, c.phoneNumber,"
+            + " o.id, o.description, o.amount, p.id, p.name, p.price, p.description, p.stockQuantity, p.percentageDiscount)"
+            + " from Customer c left join c.orders o left join o.products p"
+            + " where c.id in :ids order by c.id, o.id, p.id")
+    Stream<CustomerGraphRow> streamGraphRows(Collection<UUID> ids);
+
+    /**
+     * Streams every customer as a summary, ordered by identifier, for bulk exports.
+     *
+     * <p>Read with the same fetch size as {@link #streamGraphRows(Collection)}. The stream
+     * must be consumed and closed inside a transaction.</p>
+     *
+     * @return all customer summaries
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query("select new com.ecommerce.payment.dto.CustomerSummaryDTO(c.id, c.name, c.email, c.phoneNumber, c.createdAt)"
+            + " from Customer c order by c.id")
+    Stream<CustomerSummaryDTO> streamAllSummaries();
+
+    /**
+     * Streams the identifier of every customer, unordered, read through the primary key
+     * with the same fetch size as {@link #streamGraphRows(Collection)}. The stream must be
+     * consumed and closed inside a transaction.
+     *
+     * @return all customer identifiers
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query("select c.id from Customer c")
+    Stream<UUID> streamAllIds();
+
+    /**
+     * Returns the identifiers of the customers inserted or updated at or after the given
+     * time, read through the {@code idx_customer_updated_at} index. The update time is kept
+     * by the database, so rows written by any writer are found.
+     *
+     * @param updatedAt lower bound of the last write time, inclusive
+     * @return the identifiers of the customers written since then
+     */
+    @Query("select c.id from Customer c where c.updatedAt >= :updatedAt")
+    List<UUID> findIdsUpdatedSince(LocalDateTime updatedAt);
+
+    /**
+     * Returns the customers inserted or updated at or after the given time, as summaries, read
+     * through the {@code idx_customer_updated_at} index.
+     *
+     * @param updatedAt lower bound of the last write time, inclusive
+     * @return the summaries of the customers written since then
+     */
+    @Query("select new com.ecommerce.payment.dto.CustomerSummaryDTO(c.id, c.name, c.email, c.phoneNumber, c.createdAt)"
+            + " from Customer c where c.updatedAt >= :updatedAt")
+    List<CustomerSummaryDTO> findSummariesUpdatedSince(LocalDateTime updatedAt);
+
+    /**
+     * Loads a single customer together with its orders.
+     *
+     * @param id customer identifier
+     * @return the customer, or {@link Optional#empty()} if none exists
+     */
+    @EntityGraph(Customer.GRAPH_ORDERS)
+    Optional<Customer> findWithOrdersById(UUID id);
+
+    /**
+     * Returns one page of customers as flat list views. Returned as a {@link Slice} so
+     * no count query is issued.
+     *
+     * @param pageable page request, including the sort order
+     * @return the page of customer summaries
+     */
+    @Query("select new com.ecommerce.payment.dto.CustomerSummaryDTO(c.id, c.name, c.email, c.phoneNumber, c.createdAt) from Customer c")
+    Slice<CustomerSummaryDTO> findSummaries(Pageable pageable);
+
+    /**
+     * Returns the first keyset page of customers, ordered by {@code (createdAt, id)}.
+     *
+     * @param pageable page request carrying only the page size; the page number must be {@code 0}
+     * @return the first slice of customer summaries
+     */
+    @Query("select new com.ecommerce.payment.dto.CustomerSummaryDTO(c.id, c.name, c.email, c.phoneNumber, c.createdAt) from Customer c"
+            + " order by c.createdAt, c.id")
+    Slice<CustomerSummaryDTO> findSummariesFirst(Pageable pageable);
+
+    /**
+     * Returns the keyset page of customers that follows {@code (createdAt, id)}, ordered by
+     * {@code (createdAt, id)}. The predicate seeks on the ordering columns, so the cost does
+     * not grow with the depth of the page. Its leading {@code createdAt >=} bound is redundant,
+     * but gives the database a range on {@code idx_customer_created_at} to start from, which it
+     * does not derive from the disjunction alone.
+     *
+     * @param createdAt creation time of the last customer of the previous page
+     * @param id        identifier of the last customer of the previous page
+     * @param pageable  page request carrying only the page size; the page number must be {@code 0}
+     * @return the next slice of customer summaries
+     */
+    @Query("select new com.ecommerce.payment.dto.CustomerSummaryDTO(c.id, c.name, c.email, c.phoneNumber, c.createdAt) from Customer c"
+            + " where c.createdAt >= :createdAt and (c.createdAt > :createdAt or c.id > :id)"
+            + " order by c.createdAt, c.id")
+    Slice<CustomerSummaryDTO> findSummariesAfter(LocalDateTime createdAt, UUID id, Pageable pageable);
+
+    /**
+     * Returns the given customers as flat views, in a single query.
+     *
+     * @param ids customer identifiers
+     * @return the summaries of the customers that exist, in no particular order
+     */
+    @Query("select new com.ecommerce.payment.dto.CustomerSummaryDTO(c.id, c.name, c.email, c.phoneNumber, c.createdAt) from Customer c where c.id in :ids")
+    List<CustomerSummaryDTO> findSummariesByIdIn(Collection<UUID> ids);
 }
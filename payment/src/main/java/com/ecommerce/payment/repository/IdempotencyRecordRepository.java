@@ -0,0 +1,23 @@
+package com.ecommerce.payment.repository;
+
+import com.ecommerce.payment.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends CrudRepository<IdempotencyRecord, String> {
+
+    /**
+     * Deletes the records created before {@code cutoff}.
+     *
+     * @param cutoff oldest creation time to keep
+     * @return the number of deleted records
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createdAt < :cutoff")
+    int deleteCreatedBefore(LocalDateTime cutoff);
+}
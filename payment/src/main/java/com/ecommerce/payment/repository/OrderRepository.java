@@ -1,8 +1,52 @@
 package com.ecommerce.payment.repository;
 
-import org.springframework.data.repository.CrudRepository;
+import com.ecommerce.payment.dto.CustomerOrderSummaryDTO;
+import com.ecommerce.payment.dto.OrderExportDTO;
+import com.ecommerce.payment.dto.OrderSummaryDTO;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.JpaRepository;
 import com.ecommerce.payment.model.Order;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+public interface OrderRepository extends JpaRepository<Order, UUID> {
+
+    /**
+     * Returns the orders of a customer as flat views, without loading the entities.
+     *
+     * @param customerId customer identifier
+     * @return the customer's order summaries
+     */
+    @Query("select new com.ecommerce.payment.dto.OrderSummaryDTO(o.id, o.description, o.amount, o.createdAt) from Order o where o.customer.id = :customerId")
+    List<OrderSummaryDTO> findSummariesByCustomerId(UUID customerId);
+
+    /**
+     * Returns the orders of several customers as flat views carrying their customer id,
+     * in a single query.
+     *
+     * @param customerIds customer identifiers
+     * @return the order summaries of all the given customers
+     */
+    @Query("select new com.ecommerce.payment.dto.CustomerOrderSummaryDTO(o.customer.id, o.id, o.description, o.amount, o.createdAt)"
+            + " from Order o where o.customer.id in :customerIds")
+    List<CustomerOrderSummaryDTO> findSummariesByCustomerIdIn(Collection<UUID> customerIds);
 
-public interface OrderRepository extends CrudRepository<Order, UUID> {
+    /**
+     * Streams every order as an export line, ordered by identifier.
+     *
+     * <p>Read {@value CustomerRepository#STREAM_FETCH_SIZE} rows at a time. The stream must
+     * be consumed and closed inside a transaction.</p>
+     *
+     * @return all orders
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + CustomerRepository.STREAM_FETCH_SIZE))
+    @Query("select new com.ecommerce.payment.dto.OrderExportDTO(o.id, o.customer.id, o.description, o.amount, o.createdAt)"
+            + " from Order o order by o.id")
+    Stream<OrderExportDTO> streamAllExports();
 }
@@ -1,9 +1,84 @@
 package com.ecommerce.payment.repository;
 
+import com.ecommerce.payment.dto.ProductLineDTO;
 import com.ecommerce.payment.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface ProductRepository extends CrudRepository<Product, UUID> {
+
+    /**
+     * Returns the product lines of the given orders as flat views, without loading the entities.
+     *
+     * <p>Results are kept in the query cache; Hibernate invalidates them whenever the
+     * product table is written.</p>
+     *
+     * @param orderIds order identifiers
+     * @return the product lines of all the given orders
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("select new com.ecommerce.payment.dto.ProductLineDTO(p.order.id, p.id, p.name, p.price, p.percentageDiscount) from Product p where p.order.id in :orderIds")
+    List<ProductLineDTO> findLinesByOrderIdIn(Collection<UUID> orderIds);
+
+    /**
+     * Same as {@link #findLinesByOrderIdIn}, without the query cache: used by reads that may
+     * run on a lagging replica, whose results must not be cached for every reader.
+     *
+     * @param orderIds order identifiers
+     * @return the product lines of all the given orders
+     */
+    @Query("select new com.ecommerce.payment.dto.ProductLineDTO(p.order.id, p.id, p.name, p.price, p.percentageDiscount) from Product p where p.order.id in :orderIds")
+    List<ProductLineDTO> findUncachedLinesByOrderIdIn(Collection<UUID> orderIds);
+
+    /**
+     * Returns the catalog products (products without an order) with the given identifiers.
+     *
+     * @param ids product identifiers
+     * @return the catalog products found, in no particular order
+     */
+    @Query("select p from Product p where p.id in :ids and p.order is null")
+    List<Product> findCatalogProducts(Collection<UUID> ids);
+
+    /**
+     * Returns the stock quantity of a catalog product.
+     *
+     * @param id product identifier
+     * @return the stock, or empty if there is no such catalog product
+     */
+    @Query("select p.stockQuantity from Product p where p.id = :id and p.order is null")
+    Optional<Integer> findCatalogStock(UUID id);
+
+    /**
+     * Takes units from the stock of a catalog product, if it has enough of them.
+     *
+     * <p>A single conditional UPDATE: the check and the decrement are atomic, and the row
+     * stays locked until the calling transaction ends.</p>
+     *
+     * @param id    product identifier
+     * @param units number of units to take
+     * @return 1 if the units were taken, 0 if the product is unknown or has too little stock
+     */
+    @Modifying
+    @Query("update Product p set p.stockQuantity = p.stockQuantity - :units, p.version = p.version + 1 where p.id = :id and p.order is null and p.stockQuantity >= :units")
+    int reserveStock(UUID id, int units);
+
+    /**
+     * Puts units back into the stock of a catalog product.
+     *
+     * @param id    product identifier
+     * @param units number of units to return
+     * @return 1 if the stock was updated, 0 if the product is unknown
+     */
+    @Modifying
+    @Query("update Product p set p.stockQuantity = p.stockQuantity + :units, p.version = p.version + 1 where p.id = :id and p.order is null")
+    int releaseStock(UUID id, int units);
 }
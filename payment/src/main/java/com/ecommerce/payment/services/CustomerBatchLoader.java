@@ -0,0 +1,225 @@
+package com.ecommerce.payment.services;
+
+import com.ecommerce.payment.datasource.ReadYourWrites;
+import com.ecommerce.payment.dto.CustomerDetailDTO;
+import com.ecommerce.payment.dto.CustomerOrderSummaryDTO;
+import com.ecommerce.payment.dto.CustomerSummaryDTO;
+import com.ecommerce.payment.dto.OrderSummaryDTO;
+import com.ecommerce.payment.repository.CustomerRepository;
+import com.ecommerce.payment.repository.OrderRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Loads customer detail views by id, coalescing concurrent single-id lookups into one query.
+ *
+ * <p>{@link #fetch(Collection)} reads the details of any number of customers with two
+ * queries: the customers, and the orders of all of them, each selected by an {@code IN} list.
+ * {@link #load(UUID)} batches single lookups: the first caller opens a batch and waits
+ * {@code payment.customers.batch.window} for others to join it, then fetches every id of the
+ * batch at once, while the callers that joined wait for its result. A batch reaching
+ * {@code payment.customers.batch.max-size} ids is fetched right away by the caller that
+ * filled it. A window of zero turns coalescing off. The number of ids per fetched batch is
+ * published as the {@value #BATCH_SIZE_METRIC} distribution summary.</p>
+ *
+ * <p>Batches run on the thread of one of their callers, so fetches stay within the
+ * concurrency limit of the calling service. Requests pinned to the primary by
+ * {@link ReadYourWrites} are batched separately from the others, so that a pinned caller
+ * never receives the result of a read from a replica.</p>
+ */
+@Service
+public class CustomerBatchLoader {
+
+    /** Distribution summary of the number of ids per fetched batch. */
+    public static final String BATCH_SIZE_METRIC = "payment.customers.batch.size";
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${payment.customers.batch.window:2ms}")
+    private Duration window;
+
+    @Value("${payment.customers.batch.max-size:100}")
+    private int maxSize;
+
+    /** Guards the open batches. */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Batch accepting ids, for callers not pinned to the primary; {@code null} if none is open. */
+    private Batch open;
+
+    /** Batch accepting ids, for callers pinned to the primary; {@code null} if none is open. */
+    private Batch openPinned;
+
+    private TransactionTemplate readOnly;
+
+    private DistributionSummary batchSizes;
+
+    /**
+     * Creates the read-only transaction template and registers the batch size summary.
+     */
+    @PostConstruct
+    void init() {
+        this.readOnly = new TransactionTemplate(this.transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.batchSizes = DistributionSummary.builder(BATCH_SIZE_METRIC)
+                .description("Customer ids fetched per coalesced lookup")
+                .register(this.meterRegistry);
+    }
+
+    /**
+     * Returns the detail view of a customer, fetched together with the concurrent lookups
+     * of other customers.
+     *
+     * @param id customer identifier
+     * @return the customer's detail view, or {@link Optional#empty()} if none exists
+     */
+    public Optional<CustomerDetailDTO> load(UUID id) {
+        boolean pinned = ReadYourWrites.isPinned();
+        Batch batch;
+        CompletableFuture<Optional<CustomerDetailDTO>> result;
+        boolean leader;
+        boolean full;
+        this.lock.lock();
+        try {
+            batch = pinned ? this.openPinned : this.open;
+            leader = batch == null;
+            if (leader) {
+                batch = new Batch();
+                setOpen(pinned, batch);
+            }
+            result = batch.results.computeIfAbsent(id, key -> new CompletableFuture<>());
+            full = batch.results.size() >= this.maxSize || this.window.isZero();
+            if (full) {
+                setOpen(pinned, null);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        if (full) {
+            run(batch);
+        } else if (leader) {
+            awaitWindow();
+            if (close(pinned, batch)) {
+                run(batch);
+            }
+        }
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Returns the detail views of the given customers, with one query for the customers and
+     * one for their orders.
+     *
+     * @param ids customer identifiers
+     * @return the detail views of the customers that exist, by id
+     */
+    public Map<UUID, CustomerDetailDTO> fetch(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return this.readOnly.execute(status -> {
+            List<CustomerSummaryDTO> customers = this.customerRepository.findSummariesByIdIn(ids);
+            if (customers.isEmpty()) {
+                return Map.of();
+            }
+            Map<UUID, List<OrderSummaryDTO>> orders = this.orderRepository
+                    .findSummariesByCustomerIdIn(customers.stream().map(CustomerSummaryDTO::id).toList()).stream()
+                    .collect(Collectors.groupingBy(CustomerOrderSummaryDTO::customerId,
+                            Collectors.mapping(CustomerOrderSummaryDTO::summary, Collectors.toList())));
+            Map<UUID, CustomerDetailDTO> details = new HashMap<>();
+            for (CustomerSummaryDTO customer : customers) {
+                details.put(customer.id(), CustomerDetailDTO.of(customer, orders.getOrDefault(customer.id(), List.of())));
+            }
+            return details;
+        });
+    }
+
+    private void setOpen(boolean pinned, Batch batch) {
+        if (pinned) {
+            this.openPinned = batch;
+        } else {
+            this.open = batch;
+        }
+    }
+
+    /**
+     * Stops a batch from accepting ids, unless a caller that filled it already did.
+     *
+     * @return whether the batch was still open
+     */
+    private boolean close(boolean pinned, Batch batch) {
+        this.lock.lock();
+        try {
+            if ((pinned ? this.openPinned : this.open) != batch) {
+                return false;
+            }
+            setOpen(pinned, null);
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void awaitWindow() {
+        try {
+            Thread.sleep(this.window);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Fetches a closed batch and completes the result of each of its callers.
+     */
+    private void run(Batch batch) {
+        this.batchSizes.record(batch.results.size());
+        try {
+            Map<UUID, CustomerDetailDTO> details = fetch(batch.results.keySet());
+            batch.results.forEach((id, result) -> result.complete(Optional.ofNullable(details.get(id))));
+        } catch (RuntimeException e) {
+            batch.results.values().forEach(result -> result.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * The ids of a batch and the results their callers wait for; only changed under the
+     * lock while the batch is open.
+     */
+    private static final class Batch {
+
+        private final Map<UUID, CompletableFuture<Optional<CustomerDetailDTO>>> results = new LinkedHashMap<>();
+    }
+}
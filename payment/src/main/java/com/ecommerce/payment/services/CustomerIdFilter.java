@@ -0,0 +1,311 @@
+package com.ecommerce.payment.services;
+
+import com.ecommerce.payment.repository.CustomerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory Bloom filter of the identifiers of existing customers, so that lookups of
+ * unknown ids are answered without querying the database.
+ *
+ * <p>{@link #mightExist(UUID)} never returns {@code false} for an existing customer; it
+ * returns {@code true} for about {@code payment.customers.id-filter.false-positive-rate} of
+ * the unknown ids, which are then looked up as usual. Deleted customers stay in the filter.
+ * Until the filter is first built, and when {@code payment.customers.id-filter.enabled} is
+ * {@code false}, every id might exist. Answers are counted by the {@value #LOOKUPS_METRIC}
+ * counter, tagged with the result.</p>
+ *
+ * <p>The filter is built at startup by streaming every customer id, sized for twice the
+ * current number of customers and at least {@code payment.customers.id-filter.expected-customers},
+ * and rebuilt at twice the size once it holds more ids than it was sized for. Customers
+ * inserted through JPA are added by {@link CustomerIdFilterListener} when they are flushed,
+ * and again after their transaction commits, so that a build running meanwhile cannot miss
+ * them. Customers inserted by other instances or writers are read every
+ * {@code payment.customers.id-filter.refresh-interval-ms} by their {@code updated_at}
+ * column, which the database sets on every insert and update whoever the writer is, going
+ * back {@code payment.customers.id-filter.refresh-overlap} to cover transactions that commit
+ * late and clocks that differ. Builds and refreshes read from the primary database, since
+ * a replica may not have the latest customers yet.</p>
+ */
+@Service
+@Slf4j
+public class CustomerIdFilter {
+
+    /** Counter of the lookups answered by the filter, tagged with their result. */
+    public static final String LOOKUPS_METRIC = "payment.customers.id-filter.lookups";
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${payment.customers.id-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${payment.customers.id-filter.expected-customers:1000000}")
+    private long expectedCustomers;
+
+    @Value("${payment.customers.id-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${payment.customers.id-filter.refresh-overlap:30s}")
+    private Duration refreshOverlap;
+
+    /** Guards {@link #next}: additions share it, builds take it exclusively to switch filters. */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Filter answering lookups, {@code null} until the first build completes. */
+    private volatile Bits current;
+
+    /** Filter being built, which receives the additions too; {@code null} outside of builds. */
+    private Bits next;
+
+    /**
+     * Serializes builds and refreshes. A lock rather than synchronized, which would pin the
+     * virtual thread to its carrier while it waits for the database.
+     */
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    /** Write time from which the next refresh reads customers; guarded by {@link #refreshLock}. */
+    private LocalDateTime refreshFrom;
+
+    private Counter absent;
+
+    private Counter possible;
+
+    /**
+     * Registers the lookup counters.
+     */
+    @PostConstruct
+    void registerMetrics() {
+        this.absent = lookups("absent");
+        this.possible = lookups("possible");
+    }
+
+    private Counter lookups(String result) {
+        return Counter.builder(LOOKUPS_METRIC)
+                .description("Customer lookups answered by the id filter")
+                .tag("result", result)
+                .register(this.meterRegistry);
+    }
+
+    /**
+     * Returns whether a customer with the given id might exist.
+     *
+     * @param id customer identifier
+     * @return {@code false} only if no such customer exists
+     */
+    public boolean mightExist(UUID id) {
+        Bits bits = this.current;
+        if (!this.enabled || bits == null) {
+            return true;
+        }
+        if (bits.mightContain(id)) {
+            this.possible.increment();
+            return true;
+        }
+        this.absent.increment();
+        return false;
+    }
+
+    /**
+     * Adds a customer right away and again once the current transaction commits.
+     *
+     * @param id identifier of the inserted customer
+     */
+    public void add(UUID id) {
+        put(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(id);
+                }
+            });
+        }
+    }
+
+    /**
+     * Builds the filter on the first run and whenever it is full, and otherwise adds the
+     * customers written since the previous run.
+     *
+     * <p>Runs every {@code payment.customers.id-filter.refresh-interval-ms} milliseconds,
+     * starting at startup; can also be called directly.</p>
+     */
+    @Scheduled(fixedDelayString = "${payment.customers.id-filter.refresh-interval-ms:1000}")
+    public void refresh() {
+        if (!this.enabled) {
+            return;
+        }
+        this.refreshLock.lock();
+        try {
+            Bits bits = this.current;
+            if (bits == null || bits.isFull()) {
+                build();
+                return;
+            }
+            LocalDateTime start = LocalDateTime.now();
+            new TransactionTemplate(this.transactionManager).executeWithoutResult(status ->
+                    this.customerRepository.findIdsUpdatedSince(this.refreshFrom).forEach(this::put));
+            this.refreshFrom = start.minus(this.refreshOverlap);
+        } finally {
+            this.refreshLock.unlock();
+        }
+    }
+
+    private void put(UUID id) {
+        this.lock.readLock().lock();
+        try {
+            Bits bits = this.current;
+            if (bits != null) {
+                bits.put(id);
+            }
+            if (this.next != null) {
+                this.next.put(id);
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private void build() {
+        long start = System.nanoTime();
+        LocalDateTime from = LocalDateTime.now().minus(this.refreshOverlap);
+        TransactionTemplate transaction = new TransactionTemplate(this.transactionManager);
+        Long customers = transaction.execute(status -> this.customerRepository.count());
+        Bits built = new Bits(Math.max(this.expectedCustomers, 2 * customers), this.falsePositiveRate);
+        // Receive additions before the ids are read: a customer committed after the read
+        // started is added on commit
+        setNext(built);
+        try {
+            transaction.executeWithoutResult(status -> {
+                try (Stream<UUID> ids = this.customerRepository.streamAllIds()) {
+                    ids.forEach(built::put);
+                }
+            });
+        } catch (RuntimeException e) {
+            setNext(null);
+            throw e;
+        }
+        this.lock.writeLock().lock();
+        try {
+            this.current = built;
+            this.next = null;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        this.refreshFrom = from;
+        log.info("Built the customer id filter from {} customers, sized for {}, in {} ms", customers, built.capacity,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void setNext(Bits bits) {
+        this.lock.writeLock().lock();
+        try {
+            this.next = bits;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * A Bloom filter of a fixed size; thread-safe. Each id sets {@link #hashes} bits,
+     * derived from two hashes of it.
+     */
+    private static final class Bits {
+
+        private final AtomicLongArray words;
+
+        private final long size;
+
+        private final int hashes;
+
+        /** Number of ids the filter was sized for. */
+        private final long capacity;
+
+        /** Ids added, counting only those that set at least one bit. */
+        private final AtomicLong ids = new AtomicLong();
+
+        private Bits(long capacity, double falsePositiveRate) {
+            long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.words = new AtomicLongArray((int) Math.min(Math.max((bits + 63) >>> 6, 1), Integer.MAX_VALUE - 8));
+            this.size = this.words.length() * 64L;
+            this.hashes = (int) Math.max(1, Math.round((double) this.size / capacity * Math.log(2)));
+            this.capacity = capacity;
+        }
+
+        boolean mightContain(UUID id) {
+            long hash = hash(id);
+            long step = step(hash);
+            for (int i = 0; i < this.hashes; i++) {
+                long bit = Long.remainderUnsigned(hash + i * step, this.size);
+                if ((this.words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void put(UUID id) {
+            long hash = hash(id);
+            long step = step(hash);
+            boolean changed = false;
+            for (int i = 0; i < this.hashes; i++) {
+                long bit = Long.remainderUnsigned(hash + i * step, this.size);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                if ((this.words.get(word) & mask) == 0) {
+                    changed |= (this.words.getAndAccumulate(word, mask, (a, b) -> a | b) & mask) == 0;
+                }
+            }
+            if (changed) {
+                this.ids.incrementAndGet();
+            }
+        }
+
+        boolean isFull() {
+            return this.ids.get() > this.capacity;
+        }
+
+        private static long hash(UUID id) {
+            return mix(id.getMostSignificantBits() ^ mix(id.getLeastSignificantBits()));
+        }
+
+        private static long step(long hash) {
+            return mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        }
+
+        /** Final mix of MurmurHash3: every input bit affects every output bit. */
+        private static long mix(long value) {
+            value ^= value >>> 33;
+            value *= 0xff51afd7ed558ccdL;
+            value ^= value >>> 33;
+            value *= 0xc4ceb9fe1a85ec53L;
+            value ^= value >>> 33;
+            return value;
+        }
+    }
+}
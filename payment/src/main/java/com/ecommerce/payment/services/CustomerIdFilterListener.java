@@ -0,0 +1,35 @@
+package com.ecommerce.payment.services;
+
+import com.ecommerce.payment.model.Customer;
+import jakarta.persistence.PostPersist;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.UUID;
+
+/**
+ * JPA entity listener that adds the customers inserted through JPA to the
+ * {@link CustomerIdFilter}.
+ *
+ * <p>Like {@link CustomerSearchIndexListener} it is created through the Spring bean
+ * container before the filter can exist, so the filter is looked up on first use, and
+ * contexts without it skip it. Deleted customers are not removed: a Bloom filter cannot
+ * forget an element, and a stale id only costs a database lookup.</p>
+ */
+public class CustomerIdFilterListener {
+
+    /** Filter receiving the inserted customers. */
+    @Autowired
+    private ObjectProvider<CustomerIdFilter> customerIdFilter;
+
+    /**
+     * Adds a customer to the filter after it is inserted.
+     *
+     * @param customer the inserted customer
+     */
+    @PostPersist
+    void inserted(Customer customer) {
+        UUID id = customer.getId();
+        this.customerIdFilter.ifAvailable(filter -> filter.add(id));
+    }
+}
@@ -0,0 +1,488 @@
+package com.ecommerce.payment.services;
+
+import com.ecommerce.payment.dto.CustomerSummaryDTO;
+import com.ecommerce.payment.repository.CustomerRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory search index of customers by partial name, email or phone number.
+ *
+ * <p>Every customer is a document holding its lower-cased name and email, and the digits of
+ * its phone number. Each trigram (three consecutive characters) of those fields maps to the
+ * documents containing it. A query is looked up by intersecting the documents of all its
+ * trigrams, then checking that each candidate really contains the query, so a search reads
+ * a few short lists in memory instead of scanning the customer table. Queries need at least
+ * {@value #GRAM} letters or digits. A query made only of phone characters ({@code + - ( ) .}
+ * and spaces) is also matched against phone numbers, by its digits.</p>
+ *
+ * <p>The index is built on the first search, by streaming the customer summaries, and is
+ * then kept up to date in two ways. Customers saved or deleted through JPA by this instance
+ * are applied by {@link CustomerSearchIndexListener} once their transaction commits; changes
+ * committed while the index is being built are queued and applied after it. Customers
+ * inserted or edited by other instances or outside of JPA are read every
+ * {@code payment.customers.search.refresh-interval-ms} by last write time, going back
+ * {@code payment.customers.search.refresh-overlap} to cover transactions that commit late and
+ * clocks that differ. Customers deleted by other writers stay searchable until the next
+ * restart. Builds and refreshes read from the primary database, since a replica may not have
+ * the latest writes yet.</p>
+ *
+ * <p>Documents are numbered in the order they are indexed, so the lists of each trigram stay
+ * sorted and intersect in linear time. An updated customer gets a new number; the lists
+ * still referring to its old one are compacted once such stale numbers outnumber the live
+ * documents. Results come in indexing order. The number of indexed customers is published
+ * as the {@value #DOCUMENTS_METRIC} gauge.</p>
+ */
+@Service
+@Slf4j
+public class CustomerSearchIndex {
+
+    /** Length of the indexed n-grams, and minimum length of a query. */
+    public static final int GRAM = 3;
+
+    /** Gauge of the number of indexed customers. */
+    public static final String DOCUMENTS_METRIC = "payment.customers.search.documents";
+
+    private static final Pattern PHONE_QUERY = Pattern.compile("[\\d\\s+().-]+");
+
+    /** Separates the fields of a document, so that no trigram spans two of them. */
+    private static final char FIELD_SEPARATOR = '\u0000';
+
+    private enum State { EMPTY, BUILDING, READY }
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${payment.customers.search.refresh-overlap:30s}")
+    private Duration refreshOverlap;
+
+    /** Guards every field below; searches share it, changes and builds take it exclusively. */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Serializes builds, so that concurrent first searches wait for a single one. */
+    private final ReentrantLock buildLock = new ReentrantLock();
+
+    private State state = State.EMPTY;
+
+    private Segment segment = new Segment();
+
+    /** Changes committed while the index is being built. */
+    private final List<Consumer<Segment>> pending = new ArrayList<>();
+
+    /** Last write time from which the next refresh reads customers; set by builds and refreshes. */
+    private LocalDateTime refreshFrom;
+
+    /**
+     * Registers the document count gauge.
+     */
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder(DOCUMENTS_METRIC, this, CustomerSearchIndex::size)
+                .description("Customers held by the in-memory search index")
+                .register(this.meterRegistry);
+    }
+
+    /**
+     * Returns the customers whose name or email contains the query, ignoring case, or whose
+     * phone number contains its digits.
+     *
+     * @param query text to look for
+     * @param limit maximum number of customers returned
+     * @return the matching customers, at most {@code limit}
+     * @throws IllegalArgumentException if the query has fewer than {@value #GRAM} letters or digits
+     */
+    public List<CustomerSummaryDTO> search(String query, int limit) throws IllegalArgumentException {
+        String text = query == null ? "" : query.strip().toLowerCase(Locale.ROOT);
+        String digits = PHONE_QUERY.matcher(text).matches() ? digits(text) : "";
+        if (text.length() < GRAM && digits.length() < GRAM) {
+            throw new IllegalArgumentException("Query must have at least " + GRAM + " characters");
+        }
+        ensureBuilt();
+        this.lock.readLock().lock();
+        try {
+            Set<Integer> found = new LinkedHashSet<>();
+            if (text.length() >= GRAM) {
+                this.segment.collect(text, false, limit, found);
+            }
+            if (digits.length() >= GRAM && found.size() < limit) {
+                this.segment.collect(digits, true, limit, found);
+            }
+            return found.stream().map(slot -> this.segment.documents.get(slot).summary()).toList();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces a customer once the current transaction commits, or right away
+     * outside of a transaction.
+     *
+     * @param customer the customer as saved
+     */
+    public void put(CustomerSummaryDTO customer) {
+        afterCommit(segment -> segment.put(customer));
+    }
+
+    /**
+     * Removes a customer once the current transaction commits, or right away outside of a
+     * transaction.
+     *
+     * @param id identifier of the deleted customer
+     */
+    public void remove(UUID id) {
+        afterCommit(segment -> segment.remove(id));
+    }
+
+    /**
+     * Applies the customers inserted or updated since the previous refresh, or since the
+     * build, by any writer. Does nothing until the index is built.
+     *
+     * <p>Runs every {@code payment.customers.search.refresh-interval-ms} milliseconds; can
+     * also be called directly.</p>
+     */
+    @Scheduled(fixedDelayString = "${payment.customers.search.refresh-interval-ms:1000}")
+    public void refresh() {
+        this.buildLock.lock();
+        try {
+            LocalDateTime from;
+            this.lock.readLock().lock();
+            try {
+                if (this.state != State.READY) {
+                    return;
+                }
+                from = this.refreshFrom;
+            } finally {
+                this.lock.readLock().unlock();
+            }
+            LocalDateTime start = LocalDateTime.now();
+            List<CustomerSummaryDTO> customers = new TransactionTemplate(this.transactionManager)
+                    .execute(status -> this.customerRepository.findSummariesUpdatedSince(from));
+            this.lock.writeLock().lock();
+            try {
+                customers.forEach(this.segment::put);
+                this.refreshFrom = start.minus(this.refreshOverlap);
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+        } finally {
+            this.buildLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed customers, 0 until the index is built.
+     *
+     * @return the number of indexed customers
+     */
+    public int size() {
+        this.lock.readLock().lock();
+        try {
+            return this.segment.slots.size();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private void afterCommit(Consumer<Segment> change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    private void apply(Consumer<Segment> change) {
+        this.lock.writeLock().lock();
+        try {
+            switch (this.state) {
+                // Not built yet: the build will read the change from the database
+                case EMPTY -> {
+                }
+                case BUILDING -> this.pending.add(change);
+                case READY -> change.accept(this.segment);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureBuilt() {
+        if (isReady()) {
+            return;
+        }
+        this.buildLock.lock();
+        try {
+            if (!isReady()) {
+                build();
+            }
+        } finally {
+            this.buildLock.unlock();
+        }
+    }
+
+    private boolean isReady() {
+        this.lock.readLock().lock();
+        try {
+            return this.state == State.READY;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private void build() {
+        long start = System.nanoTime();
+        LocalDateTime from = LocalDateTime.now().minus(this.refreshOverlap);
+        this.lock.writeLock().lock();
+        try {
+            this.state = State.BUILDING;
+            this.pending.clear();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        Segment built = new Segment();
+        try {
+            new TransactionTemplate(this.transactionManager).executeWithoutResult(status -> {
+                try (Stream<CustomerSummaryDTO> customers = this.customerRepository.streamAllSummaries()) {
+                    customers.forEach(built::put);
+                }
+            });
+        } catch (RuntimeException e) {
+            this.lock.writeLock().lock();
+            try {
+                this.state = State.EMPTY;
+                this.pending.clear();
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        this.lock.writeLock().lock();
+        try {
+            this.pending.forEach(change -> change.accept(built));
+            this.pending.clear();
+            this.segment = built;
+            this.refreshFrom = from;
+            this.state = State.READY;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        log.info("Indexed {} customers for search in {} ms", built.slots.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static String digits(String value) {
+        StringBuilder digits = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+
+    /**
+     * An indexed customer: its summary and the normalized fields its trigrams come from.
+     */
+    private record Document(CustomerSummaryDTO summary, String text, String phoneDigits) {
+
+        static Document of(CustomerSummaryDTO summary) {
+            String text = lower(summary.name()) + FIELD_SEPARATOR + lower(summary.email());
+            return new Document(summary, text, summary.phoneNumber() == null ? "" : digits(summary.phoneNumber()));
+        }
+
+        private static String lower(String value) {
+            return value == null ? "" : value.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * The documents and the trigram lists; not thread-safe.
+     */
+    private static final class Segment {
+
+        /** Documents by number; {@code null} once replaced or removed. */
+        private final List<Document> documents = new ArrayList<>();
+
+        /** Live document number of each customer. */
+        private final Map<UUID, Integer> slots = new HashMap<>();
+
+        /** Text trigrams (name and email) to document numbers. */
+        private Map<String, Postings> textGrams = new HashMap<>();
+
+        /** Phone number trigrams to document numbers. */
+        private Map<String, Postings> phoneGrams = new HashMap<>();
+
+        /** Numbers of replaced or removed documents still referenced by the lists. */
+        private int stale;
+
+        /** Indexes a customer, unless it is already indexed as it is. */
+        void put(CustomerSummaryDTO customer) {
+            Integer previous = this.slots.get(customer.id());
+            if (previous != null && this.documents.get(previous).summary().equals(customer)) {
+                return;
+            }
+            this.slots.remove(customer.id());
+            if (previous != null) {
+                this.documents.set(previous, null);
+                this.stale++;
+            }
+            Document document = Document.of(customer);
+            int slot = this.documents.size();
+            this.documents.add(document);
+            this.slots.put(customer.id(), slot);
+            index(document, slot);
+            compactIfStale();
+        }
+
+        void remove(UUID id) {
+            Integer previous = this.slots.remove(id);
+            if (previous != null) {
+                this.documents.set(previous, null);
+                this.stale++;
+                compactIfStale();
+            }
+        }
+
+        /**
+         * Adds to {@code found}, up to {@code limit} in total, the documents containing the term.
+         */
+        void collect(String term, boolean phone, int limit, Set<Integer> found) {
+            Map<String, Postings> grams = phone ? this.phoneGrams : this.textGrams;
+            Set<String> termGrams = grams(term);
+            Postings[] lists = new Postings[termGrams.size()];
+            int count = 0;
+            for (String gram : termGrams) {
+                Postings list = grams.get(gram);
+                if (list == null) {
+                    return;
+                }
+                lists[count++] = list;
+            }
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+            Postings shortest = lists[0];
+            int[] cursors = new int[lists.length];
+            for (int i = 0; i < shortest.size && found.size() < limit; i++) {
+                int slot = shortest.slots[i];
+                if (inAll(slot, lists, cursors) && matches(slot, term, phone)) {
+                    found.add(slot);
+                }
+            }
+        }
+
+        private boolean matches(int slot, String term, boolean phone) {
+            Document document = this.documents.get(slot);
+            return document != null && (phone ? document.phoneDigits() : document.text()).contains(term);
+        }
+
+        /** Advances the cursors of the longer lists up to the slot; all lists are sorted. */
+        private static boolean inAll(int slot, Postings[] lists, int[] cursors) {
+            for (int l = 1; l < lists.length; l++) {
+                Postings list = lists[l];
+                int cursor = cursors[l];
+                while (cursor < list.size && list.slots[cursor] < slot) {
+                    cursor++;
+                }
+                cursors[l] = cursor;
+                if (cursor == list.size || list.slots[cursor] != slot) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void index(Document document, int slot) {
+            for (String gram : grams(document.text())) {
+                this.textGrams.computeIfAbsent(gram, g -> new Postings()).add(slot);
+            }
+            for (String gram : grams(document.phoneDigits())) {
+                this.phoneGrams.computeIfAbsent(gram, g -> new Postings()).add(slot);
+            }
+        }
+
+        /** Rebuilds the lists from the live documents once most of their entries are stale. */
+        private void compactIfStale() {
+            if (this.stale < 1024 || this.stale < this.slots.size()) {
+                return;
+            }
+            this.textGrams = new HashMap<>();
+            this.phoneGrams = new HashMap<>();
+            for (int slot = 0; slot < this.documents.size(); slot++) {
+                Document document = this.documents.get(slot);
+                if (document != null) {
+                    index(document, slot);
+                }
+            }
+            this.stale = 0;
+        }
+
+        private static Set<String> grams(String value) {
+            Set<String> grams = new LinkedHashSet<>();
+            for (int i = 0; i + GRAM <= value.length(); i++) {
+                String gram = value.substring(i, i + GRAM);
+                if (gram.indexOf(FIELD_SEPARATOR) < 0) {
+                    grams.add(gram);
+                }
+            }
+            return grams;
+        }
+    }
+
+    /**
+     * Growable sorted list of document numbers.
+     */
+    private static final class Postings {
+
+        private int[] slots = new int[4];
+
+        private int size;
+
+        /** Appends a slot; slots are added in increasing order. */
+        void add(int slot) {
+            if (this.size > 0 && this.slots[this.size - 1] == slot) {
+                return;
+            }
+            if (this.size == this.slots.length) {
+                this.slots = Arrays.copyOf(this.slots, this.size * 2);
+            }
+            this.slots[this.size++] = slot;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.ecommerce.payment.services;
+
+import com.ecommerce.payment.dto.CustomerSummaryDTO;
+import com.ecommerce.payment.model.Customer;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.UUID;
+
+/**
+ * JPA entity listener that keeps the {@link CustomerSearchIndex} up to date with the
+ * customers written through JPA by this instance, without waiting for its next refresh.
+ *
+ * <p>Hibernate creates it through the Spring bean container, so its dependencies are
+ * injected. That happens while the entity manager factory is built, before the index and
+ * the repository it reads from can exist, so the index is looked up on first use. Contexts
+ * without the index, such as JPA test slices, skip it. The index applies each change once
+ * the writing transaction commits.</p>
+ */
+public class CustomerSearchIndexListener {
+
+    /** Index receiving the saved and deleted customers. */
+    @Autowired
+    private ObjectProvider<CustomerSearchIndex> customerSearchIndex;
+
+    /**
+     * Indexes a customer after it is inserted or updated.
+     *
+     * @param customer the flushed customer
+     */
+    @PostPersist
+    @PostUpdate
+    void saved(Customer customer) {
+        CustomerSummaryDTO summary = new CustomerSummaryDTO(customer.getId(), customer.getName(), customer.getEmail(),
+                customer.getPhoneNumber(), customer.getCreatedAt());
+        this.customerSearchIndex.ifAvailable(index -> index.put(summary));
+    }
+
+    /**
+     * Removes a customer from the index after it is deleted.
+     *
+     * @param customer the deleted customer
+     */
+    @PostRemove
+    void removed(Customer customer) {
+        UUID id = customer.getId();
+        this.customerSearchIndex.ifAvailable(index -> index.remove(id));
+    }
+}
@@ -1,18 +1,41 @@
 package com.ecommerce.payment.services;
 
+import com.ecommerce.payment.config.CacheConfig;
+import com.ecommerce.payment.datasource.ReadYourWrites;
+import com.ecommerce.payment.dto.CustomerCursor;
 import com.ecommerce.payment.dto.CustomerDTO;
+import com.ecommerce.payment.dto.CustomerDetailDTO;
+import com.ecommerce.payment.dto.CustomerGraphRow;
+import com.ecommerce.payment.dto.CustomerSliceDTO;
+import com.ecommerce.payment.dto.CustomerSummaryDTO;
+import com.ecommerce.payment.dto.OrderLinesDTO;
+import com.ecommerce.payment.dto.OrderSummaryDTO;
+import com.ecommerce.payment.dto.ProductLineDTO;
 import com.ecommerce.payment.error.CustomerNotFound;
 import com.ecommerce.payment.mappers.CustomerMapper;
 import com.ecommerce.payment.model.Customer;
 import com.ecommerce.payment.repository.CustomerRepository;
+import com.ecommerce.payment.repository.OrderRepository;
+import com.ecommerce.payment.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.core.JsonGenerator;
 
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service layer for managing customer-related business logic in the e-commerce payment system.
@@ -25,7 +48,27 @@ import java.util.UUID;
  * <ul>
  *   <li>{@link CustomerRepository} for data persistence operations</li>
  *   <li>{@link CustomerMapper} for entity-to-DTO conversions</li>
+ *   <li>{@link OrderRepository} and {@link ProductRepository} for the projection-based views</li>
+ *   <li>{@link CustomerBatchLoader} for the detail views, read several customers at a time</li>
  * </ul>
+ *
+ * <p>Two families of reads are offered. {@link #getCustomerSummaries}, {@link #getCustomerSlice},
+ * {@link #getCustomerDetail}, {@link #getCustomerDetails} and {@link #getCustomerOrders} return
+ * flat, depth-limited records read as projections, without hydrating entities.
+ * {@link #getAllCustomers}, {@link #writeCustomers}, {@link #getCustomerById} and
+ * {@link #getCustomersByIds} map the full customer/order/product tree to {@link CustomerDTO}s
+ * and are kept for clients that need the complete graph.</p>
+ *
+ * <p>Every read is its own {@code @Transactional(readOnly = true)} boundary, opened by
+ * {@link CustomerBatchLoader} for the detail views: the Hibernate session is read-only and
+ * never flushed, and everything the caller needs is fetched and mapped before the method
+ * returns. Open-session-in-view is off, so the connection is back
+ * in the pool before the controller serializes the result, and a lazy association left
+ * unloaded fails instead of querying during rendering.</p>
+ *
+ * <p>The connections it takes count against the service-wide
+ * {@link com.ecommerce.payment.datasource.ConnectionLimit} (see
+ * {@link com.ecommerce.payment.config.ExecutionConfig}).</p>
  */
 @Service
 public class CustomerService {
@@ -42,6 +85,30 @@ public class CustomerService {
     @Autowired
     private CustomerMapper customerMapper;
 
+    /**
+     * Repository used to read order projections.
+     */
+    @Autowired
+    private OrderRepository orderRepository;
+
+    /**
+     * Repository used to read product line projections.
+     */
+    @Autowired
+    private ProductRepository productRepository;
+
+    /**
+     * Loader reading customer detail views in batches.
+     */
+    @Autowired
+    private CustomerBatchLoader customerBatchLoader;
+
+    /**
+     * Tells whether reads may run on a replica, see {@link #getCustomerOrders}.
+     */
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
     /**
      * Retrieves a paginated list of all customers from the database.
      *
@@ -49,17 +116,124 @@ public class CustomerService {
      * when dealing with large datasets. The results are converted to DTOs before
      * being returned to ensure separation between the persistence and presentation layers.</p>
      *
+     * <p>The page is loaded with a fixed number of queries regardless of its size: the
+     * identifiers of the page, the customers with their orders, and the products of
+     * those orders in batches (see {@link CustomerRepository}). Pages are ordered by id, so
+     * that consecutive pages neither repeat nor skip customers.</p>
+     *
      * @param page the page number to retrieve (zero-based)
      * @param size the number of customers per page
      * @return a {@link List} of {@link CustomerDTO} objects representing the customers on the requested page
      */
+    @Transactional(readOnly = true)
     public List<CustomerDTO> getAllCustomers(int page, int size) {
-        Page<Customer> customers = this.customerRepository.findAll(PageRequest.of(page, size));
-        return customers.stream()
+        Slice<UUID> ids = this.customerRepository.findIds(PageRequest.of(page, size, Sort.by("id")));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, Customer> customers = this.customerRepository.findByIdIn(ids.getContent()).stream()
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+        // Keep the order of the id page, the fetch query does not preserve it
+        return ids.stream()
+                .map(customers::get)
                 .map(customer -> this.customerMapper.customerToCustomerDTO(customer))
                 .toList();
     }
 
+    /**
+     * Writes a page of customers, in the {@link CustomerDTO} JSON shape, directly to a
+     * JSON generator.
+     *
+     * <p>Unlike {@link #getAllCustomers(int, int)} no entity or DTO tree is built: the
+     * page's customer/order/product rows are streamed from the database
+     * ({@link CustomerRepository#streamGraphRows(java.util.Collection)}) and each row is
+     * written as soon as it is read, closing the enclosing order and customer objects
+     * when the next row belongs to another one. Memory use is therefore independent of
+     * the page size and of the number of orders and products per customer, apart from the
+     * identifiers of the page.</p>
+     *
+     * <p>Customers are ordered by identifier, orders and products likewise. The database
+     * connection is held until the last row has been written, so this runs under the
+     * same concurrency limit as the other reads.</p>
+     *
+     * @param page      the page number to write (zero-based)
+     * @param size      the number of customers per page
+     * @param generator generator to write the JSON array to; not closed by this method
+     */
+    @Transactional(readOnly = true)
+    public void writeCustomers(int page, int size, JsonGenerator generator) {
+        Slice<UUID> ids = this.customerRepository.findIds(PageRequest.of(page, size, Sort.by("id")));
+        generator.writeStartArray();
+        if (ids.hasContent()) {
+            try (Stream<CustomerGraphRow> rows = this.customerRepository.streamGraphRows(ids.getContent())) {
+                writeCustomerTree(rows.iterator(), generator);
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Folds rows ordered by customer, order and product back into nested JSON objects.
+     */
+    private static void writeCustomerTree(Iterator<CustomerGraphRow> rows, JsonGenerator generator) {
+        UUID customerId = null;
+        UUID orderId = null;
+        while (rows.hasNext()) {
+            CustomerGraphRow row = rows.next();
+            if (!row.customerId().equals(customerId)) {
+                if (customerId != null) {
+                    endCustomer(generator, orderId != null);
+                }
+                customerId = row.customerId();
+                orderId = null;
+                generator.writeStartObject();
+                generator.writeStringProperty("id", customerId.toString());
+                generator.writeStringProperty("name", row.name());
+                generator.writeStringProperty("email", row.email());
+                generator.writeStringProperty("phoneNumber", row.phoneNumber());
+                generator.writeArrayPropertyStart("orders");
+            }
+            if (row.orderId() != null && !row.orderId().equals(orderId)) {
+                if (orderId != null) {
+                    endOrder(generator);
+                }
+                orderId = row.orderId();
+                generator.writeStartObject();
+                generator.writeStringProperty("id", orderId.toString());
+                generator.writeStringProperty("description", row.orderDescription());
+                generator.writeNumberProperty("amount", row.amount().toBigDecimal());
+                generator.writeStringProperty("customerId", customerId.toString());
+                generator.writeArrayPropertyStart("products");
+            }
+            if (row.productId() != null) {
+                generator.writeStartObject();
+                generator.writeStringProperty("id", row.productId().toString());
+                generator.writeStringProperty("name", row.productName());
+                generator.writeNumberProperty("price", row.price().toBigDecimal());
+                generator.writeStringProperty("description", row.productDescription());
+                generator.writeNumberProperty("stockQuantity", row.stockQuantity());
+                generator.writeNumberProperty("percentageDiscount", row.percentageDiscount());
+                generator.writeEndObject();
+            }
+        }
+        if (customerId != null) {
+            endCustomer(generator, orderId != null);
+        }
+    }
+
+    private static void endCustomer(JsonGenerator generator, boolean orderOpen) {
+        if (orderOpen) {
+            endOrder(generator);
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static void endOrder(JsonGenerator generator) {
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
     /**
      * Retrieves a single customer by its string UUID identifier.
      *
@@ -77,13 +251,157 @@ public class CustomerService {
      * @throws com.ecommerce.payment.error.CustomerNotFound if a customer with the provided id does not exist
      * @throws IllegalArgumentException if the provided id is not a valid UUID string
      */
+    @Transactional(readOnly = true)
     public CustomerDTO getCustomerById(String id) throws CustomerNotFound, IllegalArgumentException {
         UUID uuid = UUID.fromString(id);
-        Optional<Customer> customer = this.customerRepository.findById(uuid);
+        Optional<Customer> customer = this.customerRepository.findWithOrdersById(uuid);
         if (customer.isEmpty()) {
-            throw new CustomerNotFound("Customer Not found");
+            throw CustomerNotFound.INSTANCE;
         }
         return this.customerMapper.customerToCustomerDTO(customer.get());
     }
 
+    /**
+     * Retrieves a page of customers as flat list views.
+     *
+     * <p>Only the columns of {@link CustomerSummaryDTO} are selected; orders and products
+     * are not read. Pages are ordered by id, as in {@link #getAllCustomers(int, int)}, so
+     * that consecutive pages neither repeat nor skip customers.</p>
+     *
+     * @param page the page number to retrieve (zero-based)
+     * @param size the number of customers per page
+     * @return the {@link CustomerSummaryDTO} objects on the requested page
+     */
+    @Transactional(readOnly = true)
+    public List<CustomerSummaryDTO> getCustomerSummaries(int page, int size) {
+        return this.customerRepository.findSummaries(PageRequest.of(page, size, Sort.by("id"))).getContent();
+    }
+
+    /**
+     * Retrieves a keyset page of customers ordered by creation time and id.
+     *
+     * <p>Unlike {@link #getCustomerSummaries(int, int)} no OFFSET is used: the query seeks
+     * directly past the position encoded in the cursor, so deep pages cost the same as the
+     * first one. No count query is issued either.</p>
+     *
+     * @param cursor opaque token returned with the previous page, or {@code null} for the first page
+     * @param size   the number of customers per page
+     * @return the {@link CustomerSliceDTO} holding the customers and the cursor of the following page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    public CustomerSliceDTO getCustomerSlice(String cursor, int size) throws IllegalArgumentException {
+        PageRequest limit = PageRequest.of(0, size);
+        Slice<CustomerSummaryDTO> slice;
+        if (cursor == null) {
+            slice = this.customerRepository.findSummariesFirst(limit);
+        } else {
+            CustomerCursor position = CustomerCursor.decode(cursor);
+            slice = this.customerRepository.findSummariesAfter(position.createdAt(), position.id(), limit);
+        }
+        List<CustomerSummaryDTO> customers = slice.getContent();
+        String nextCursor = slice.hasNext()
+                ? CustomerCursor.after(customers.get(customers.size() - 1)).encode()
+                : null;
+        return new CustomerSliceDTO(customers, nextCursor);
+    }
+
+    /**
+     * Retrieves the detail view of a customer: its own fields and a summary of its orders.
+     *
+     * <p>Results are cached in {@value CacheConfig#CUSTOMER_DETAILS}. Concurrent misses for
+     * the same id are coalesced: one caller loads the customer while the others wait for
+     * its result. Misses for different ids are coalesced too, by {@link CustomerBatchLoader},
+     * into one read of all of them in its own read-only transaction. Unknown ids are not
+     * cached. The entry is evicted whenever an order is created for the customer, and again
+     * once every replica in use has the order, since a read from a lagging replica may have
+     * cached the view without it meanwhile. Requests pinned to the primary by
+     * {@link ReadYourWrites} neither read nor fill the cache,
+     * so a client always sees its own orders.</p>
+     *
+     * @param id the customer's UUID
+     * @return the {@link CustomerDetailDTO} of the requested customer
+     * @throws CustomerNotFound if a customer with the provided id does not exist
+     */
+    @Cacheable(cacheNames = CacheConfig.CUSTOMER_DETAILS, key = "#id", sync = true,
+            condition = "!T(com.ecommerce.payment.datasource.ReadYourWrites).isPinned()")
+    public CustomerDetailDTO getCustomerDetail(UUID id) throws CustomerNotFound {
+        return this.customerBatchLoader.load(id).orElseThrow(() -> CustomerNotFound.INSTANCE);
+    }
+
+    /**
+     * Retrieves the detail views of several customers at once, with one query for the
+     * customers and one for their orders.
+     *
+     * <p>Unknown ids are skipped; the views come in the order of their first id. The cache
+     * of single detail views is neither read nor filled.</p>
+     *
+     * @param ids the customers' UUIDs
+     * @return the {@link CustomerDetailDTO} objects of the customers that exist
+     */
+    public List<CustomerDetailDTO> getCustomerDetails(Collection<UUID> ids) {
+        Map<UUID, CustomerDetailDTO> details = this.customerBatchLoader.fetch(ids);
+        return ids.stream().distinct().map(details::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Retrieves several customers at once as complete {@link CustomerDTO} trees.
+     *
+     * <p>Loaded like a page of {@link #getAllCustomers(int, int)}: the customers with their
+     * orders in one query, and the products of those orders in batches. Unknown ids are
+     * skipped; the customers come in the order of their first id.</p>
+     *
+     * @param ids the customers' UUIDs
+     * @return the {@link CustomerDTO} objects of the customers that exist
+     */
+    @Transactional(readOnly = true)
+    public List<CustomerDTO> getCustomersByIds(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, Customer> customers = this.customerRepository.findByIdIn(ids).stream()
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+        return ids.stream()
+                .distinct()
+                .map(customers::get)
+                .filter(Objects::nonNull)
+                .map(customer -> this.customerMapper.customerToCustomerDTO(customer))
+                .toList();
+    }
+
+    /**
+     * Retrieves the orders of a customer together with their product lines.
+     *
+     * <p>Issues one query for the orders and one for the lines of all of them. The lines
+     * query is served from the query cache, but only reads on the primary fill it: with
+     * replicas configured, a request not pinned to the primary by {@link ReadYourWrites}
+     * may read a replica that has not seen the latest order yet, and caching its result
+     * would serve the stale lines to every reader, the writer included, until the product
+     * table is written again. Such requests therefore read the lines without the cache.</p>
+     *
+     * @param id the customer's UUID as a String (expected non-null and in UUID format)
+     * @return the customer's orders as {@link OrderLinesDTO} objects
+     * @throws CustomerNotFound if a customer with the provided id does not exist
+     * @throws IllegalArgumentException if the provided id is not a valid UUID string
+     */
+    @Transactional(readOnly = true)
+    public List<OrderLinesDTO> getCustomerOrders(String id) throws CustomerNotFound, IllegalArgumentException {
+        UUID uuid = UUID.fromString(id);
+        if (!this.customerRepository.existsById(uuid)) {
+            throw CustomerNotFound.INSTANCE;
+        }
+        List<OrderSummaryDTO> orders = this.orderRepository.findSummariesByCustomerId(uuid);
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+        List<UUID> orderIds = orders.stream().map(OrderSummaryDTO::id).toList();
+        Map<UUID, List<ProductLineDTO>> lines = (this.readYourWrites.isEnabled() && !ReadYourWrites.isPinned()
+                ? this.productRepository.findUncachedLinesByOrderIdIn(orderIds)
+                : this.productRepository.findLinesByOrderIdIn(orderIds)).stream()
+                .collect(Collectors.groupingBy(ProductLineDTO::orderId));
+        return orders.stream()
+                .map(order -> OrderLinesDTO.of(order, uuid, lines.getOrDefault(order.id(), List.of())))
+                .toList();
+    }
+
 }
@@ -0,0 +1,57 @@
+package com.ecommerce.payment.services;
+
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+/**
+ * Formats supported by the bulk exports of {@link ExportService}.
+ */
+public enum ExportFormat {
+
+    /** One JSON object per line (newline-delimited JSON). */
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+
+    /** Comma-separated values with a header line, quoted as per RFC 4180. */
+    CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv");
+
+    /** Content type of an export in this format. */
+    private final MediaType mediaType;
+
+    /** File extension of an export in this format. */
+    private final String extension;
+
+    ExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    /**
+     * Returns the content type of an export in this format.
+     *
+     * @return the media type
+     */
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Returns the file extension of an export in this format.
+     *
+     * @return the extension, without the dot
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Resolves a format from its name, case-insensitively.
+     *
+     * @param name the format name ({@code ndjson} or {@code csv})
+     * @return the format
+     * @throws IllegalArgumentException if the name is not a supported format
+     */
+    public static ExportFormat of(String name) throws IllegalArgumentException {
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,195 @@
+package com.ecommerce.payment.services;
+
+import com.ecommerce.payment.dto.CustomerSummaryDTO;
+import com.ecommerce.payment.dto.OrderExportDTO;
+import com.ecommerce.payment.model.Money;
+import com.ecommerce.payment.repository.CustomerRepository;
+import com.ecommerce.payment.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.resilience.annotation.ConcurrencyLimit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Service that writes whole tables as bulk exports, for reconciliation and reporting.
+ *
+ * <p>Each export is a single query read through a forward-only cursor
+ * ({@link CustomerRepository#STREAM_FETCH_SIZE} rows per round trip) inside a read-only
+ * transaction. Rows are projections, so nothing accumulates in the persistence context, and
+ * each row is written to the output as soon as it is read: memory use is constant whatever
+ * the size of the table.</p>
+ *
+ * <p>An export holds a database connection for as long as the client takes to download it,
+ * so concurrent exports are capped separately at {@code payment.exports.max-concurrency},
+ * leaving the rest of the pool to the request paths.</p>
+ *
+ * @see ExportFormat
+ */
+@Service
+@ConcurrencyLimit(limitString = "${payment.exports.max-concurrency}")
+@Slf4j
+public class ExportService {
+
+    /** Columns of the customers export. */
+    private static final List<Column<CustomerSummaryDTO>> CUSTOMER_COLUMNS = List.of(
+            new Column<>("id", CustomerSummaryDTO::id),
+            new Column<>("name", CustomerSummaryDTO::name),
+            new Column<>("email", CustomerSummaryDTO::email),
+            new Column<>("phoneNumber", CustomerSummaryDTO::phoneNumber),
+            new Column<>("createdAt", CustomerSummaryDTO::createdAt));
+
+    /** Columns of the orders export. */
+    private static final List<Column<OrderExportDTO>> ORDER_COLUMNS = List.of(
+            new Column<>("id", OrderExportDTO::id),
+            new Column<>("customerId", OrderExportDTO::customerId),
+            new Column<>("description", OrderExportDTO::description),
+            new Column<>("amount", OrderExportDTO::amount),
+            new Column<>("createdAt", OrderExportDTO::createdAt));
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    /**
+     * Writes every customer, ordered by id.
+     *
+     * @param format output format
+     * @param out    stream to write to; flushed but not closed
+     * @return the number of customers written
+     * @throws IOException if the output cannot be written (for example the client disconnected)
+     */
+    @Transactional(readOnly = true)
+    public long exportCustomers(ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<CustomerSummaryDTO> rows = this.customerRepository.streamAllSummaries()) {
+            long count = write(rows.iterator(), CUSTOMER_COLUMNS, format, out);
+            log.info("Exported {} customers as {}", count, format);
+            return count;
+        }
+    }
+
+    /**
+     * Writes every order, ordered by id.
+     *
+     * @param format output format
+     * @param out    stream to write to; flushed but not closed
+     * @return the number of orders written
+     * @throws IOException if the output cannot be written (for example the client disconnected)
+     */
+    @Transactional(readOnly = true)
+    public long exportOrders(ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<OrderExportDTO> rows = this.orderRepository.streamAllExports()) {
+            long count = write(rows.iterator(), ORDER_COLUMNS, format, out);
+            log.info("Exported {} orders as {}", count, format);
+            return count;
+        }
+    }
+
+    private <T> long write(Iterator<T> rows, List<Column<T>> columns, ExportFormat format, OutputStream out)
+            throws IOException {
+        return switch (format) {
+            case NDJSON -> writeNdjson(rows, columns, out);
+            case CSV -> writeCsv(rows, columns, out);
+        };
+    }
+
+    /**
+     * Writes one JSON object per line.
+     */
+    private <T> long writeNdjson(Iterator<T> rows, List<Column<T>> columns, OutputStream out) {
+        long count = 0;
+        try (JsonGenerator generator = this.jsonMapper.writer()
+                .without(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .createGenerator(out)) {
+            while (rows.hasNext()) {
+                T row = rows.next();
+                generator.writeStartObject();
+                for (Column<T> column : columns) {
+                    generator.writeName(column.name());
+                    Object value = column.value().apply(row);
+                    if (value == null) {
+                        generator.writeNull();
+                    } else if (value instanceof Money money) {
+                        generator.writeNumber(money.toBigDecimal());
+                    } else {
+                        generator.writeString(value.toString());
+                    }
+                }
+                generator.writeEndObject();
+                count++;
+            }
+            if (count > 0) {
+                generator.writeRaw('\n');
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes a header line followed by one line per row.
+     */
+    private static <T> long writeCsv(Iterator<T> rows, List<Column<T>> columns, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writeCsvLine(writer, columns.stream().map(Column::name).iterator());
+        long count = 0;
+        while (rows.hasNext()) {
+            T row = rows.next();
+            writeCsvLine(writer, columns.stream().map(column -> column.value().apply(row)).iterator());
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static void writeCsvLine(Writer writer, Iterator<?> values) throws IOException {
+        while (values.hasNext()) {
+            Object value = values.next();
+            if (value != null) {
+                writeCsvField(writer, value.toString());
+            }
+            if (values.hasNext()) {
+                writer.write(',');
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Writes a field, quoting it if it contains a separator, a quote or a line break.
+     */
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value.chars().noneMatch(c -> c == ',' || c == '"' || c == '\n' || c == '\r')) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    /**
+     * A named column of an export and how to read it from a row.
+     */
+    private record Column<T>(String name, Function<T, Object> value) {
+    }
+}
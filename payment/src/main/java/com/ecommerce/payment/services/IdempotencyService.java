@@ -0,0 +1,210 @@
+package com.ecommerce.payment.services;
+
+import com.ecommerce.payment.dto.OrderDTO;
+import com.ecommerce.payment.error.IdempotencyKeyConflict;
+import com.ecommerce.payment.model.IdempotencyRecord;
+import com.ecommerce.payment.repository.IdempotencyRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Service that makes order creation idempotent per client-chosen {@code Idempotency-Key}.
+ *
+ * <p>The first request with a key creates the order; every later request with the same key
+ * and body gets the same {@link OrderDTO} back without creating another order or billing
+ * request. Keys are resolved in two tiers:</p>
+ * <ol>
+ *   <li>An in-memory store (bounded, entries expire after {@code payment.idempotency.ttl})
+ *       holding the result of every recent key, completed or still in flight. A duplicate
+ *       arriving while the original is running waits for it, up to
+ *       {@code payment.idempotency.wait-timeout}, instead of racing it.</li>
+ *   <li>The {@link IdempotencyRecord} table, written in the same transaction as the order.
+ *       It answers replays after a restart or on another instance, and its primary key
+ *       makes concurrent submissions on different instances collide, in which case the
+ *       loser replays the winner's result.</li>
+ * </ol>
+ * <p>Replays are answered from the stored response and never read the orders table.</p>
+ *
+ * <p>Error modes: a key reused with a different body, or still in progress after the wait,
+ * raises {@link IdempotencyKeyConflict}. A failed original is not recorded; requests waiting
+ * on it receive the same failure and the key can be retried.</p>
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Value("${payment.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${payment.idempotency.maximum-size:100000}")
+    private long maximumSize;
+
+    @Value("${payment.idempotency.wait-timeout:10s}")
+    private Duration waitTimeout;
+
+    /** Recent keys, with the hash of their request and their (possibly pending) result. */
+    private Cache<String, Entry> entries;
+
+    /**
+     * Result of an idempotent order creation.
+     *
+     * @param order    the order created for the key
+     * @param replayed {@code true} if the order was created by an earlier request with the same key
+     */
+    public record Outcome(OrderDTO order, boolean replayed) {
+    }
+
+    /**
+     * In-memory state of a key.
+     */
+    private record Entry(String requestHash, CompletableFuture<OrderDTO> result) {
+    }
+
+    /**
+     * Creates the in-memory store.
+     */
+    @PostConstruct
+    void createStore() {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(this.maximumSize)
+                .expireAfterWrite(this.ttl)
+                .build();
+    }
+
+    /**
+     * Creates an order once per key.
+     *
+     * @param key      the client's idempotency key
+     * @param orderDTO the order to create
+     * @return the order created for the key, now or by an earlier request
+     * @throws IdempotencyKeyConflict if the key was used for a different order, or its original
+     *                                request is still running after the wait timeout
+     * @throws IllegalArgumentException if the order is invalid (see {@link OrderService#createOrder(OrderDTO)})
+     * @throws RuntimeException for persistence failures
+     */
+    public Outcome createOrder(String key, OrderDTO orderDTO) throws IdempotencyKeyConflict {
+        String requestHash = hash(orderDTO);
+        Entry entry = new Entry(requestHash, new CompletableFuture<>());
+        Entry existing = this.entries.asMap().putIfAbsent(key, entry);
+        if (existing != null) {
+            return new Outcome(await(key, requestHash, existing), true);
+        }
+        try {
+            Optional<IdempotencyRecord> stored = this.recordRepository.findById(key);
+            OrderDTO order = stored.isPresent()
+                    ? replay(key, requestHash, stored.get())
+                    : createAndRecord(key, requestHash, orderDTO);
+            entry.result().complete(order);
+            return new Outcome(order, stored.isPresent());
+        } catch (IdempotencyKeyConflict | RuntimeException e) {
+            this.entries.asMap().remove(key, entry);
+            entry.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Deletes persisted keys older than {@code payment.idempotency.ttl}.
+     */
+    @Scheduled(initialDelayString = "${payment.idempotency.purge-interval-ms:3600000}",
+            fixedDelayString = "${payment.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int purged = this.recordRepository.deleteCreatedBefore(LocalDateTime.now().minus(this.ttl));
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency records", purged);
+        }
+    }
+
+    /**
+     * Creates the order and records its response in one transaction.
+     */
+    private OrderDTO createAndRecord(String key, String requestHash, OrderDTO orderDTO) throws IdempotencyKeyConflict {
+        try {
+            return this.orderService.createOrder(orderDTO, order -> this.recordRepository.save(
+                    new IdempotencyRecord(key, requestHash, order.getId(), this.jsonMapper.writeValueAsString(order))));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance committed the same key first; otherwise the order itself was invalid
+            IdempotencyRecord winner = this.recordRepository.findById(key).orElseThrow(() -> e);
+            return replay(key, requestHash, winner);
+        }
+    }
+
+    /**
+     * Returns the stored response of a key.
+     */
+    private OrderDTO replay(String key, String requestHash, IdempotencyRecord stored) throws IdempotencyKeyConflict {
+        checkSameRequest(key, requestHash, stored.getRequestHash());
+        log.debug("Replaying Order id: {} for Idempotency-Key {}", stored.getOrderId(), key);
+        return this.jsonMapper.readValue(stored.getResponse(), OrderDTO.class);
+    }
+
+    /**
+     * Waits for the original request of a key to complete.
+     */
+    private OrderDTO await(String key, String requestHash, Entry entry) throws IdempotencyKeyConflict {
+        checkSameRequest(key, requestHash, entry.requestHash());
+        try {
+            return entry.result().get(this.waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyKeyConflict("A request with Idempotency-Key " + key + " is still in progress", false);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IdempotencyKeyConflict conflict) {
+                throw conflict;
+            }
+            if (e.getCause() instanceof RuntimeException failure) {
+                throw failure;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for Idempotency-Key " + key, e);
+        }
+    }
+
+    private static void checkSameRequest(String key, String requestHash, String originalHash)
+            throws IdempotencyKeyConflict {
+        if (!requestHash.equals(originalHash)) {
+            throw new IdempotencyKeyConflict("Idempotency-Key " + key + " was already used for a different order", true);
+        }
+    }
+
+    /**
+     * Returns the hex SHA-256 of the JSON form of the request.
+     */
+    private String hash(OrderDTO orderDTO) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(this.jsonMapper.writeValueAsBytes(orderDTO)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,34 +1,84 @@
 package com.ecommerce.payment.services;
 
+import com.ecommerce.payment.config.CacheConfig;
+import com.ecommerce.payment.datasource.ReadYourWrites;
 import com.ecommerce.payment.dto.OrderDTO;
+import com.ecommerce.payment.error.InsufficientStock;
+import com.ecommerce.payment.events.bills.BillingOutboxDispatcher;
 import com.ecommerce.payment.events.bills.CustomBillEvent;
 import com.ecommerce.payment.mappers.OrderMapper;
+import com.ecommerce.payment.model.BillingOutboxEvent;
 import com.ecommerce.payment.model.Order;
+import com.ecommerce.payment.model.Product;
+import com.ecommerce.payment.repository.BillingOutboxRepository;
 import com.ecommerce.payment.repository.OrderRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.retry.RetryException;
+import org.springframework.core.retry.RetryTemplate;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * Service layer responsible for order-related business logic in the e-commerce payment system.
  *
  * <p>This service provides operations to create and manage orders. It acts as an
  * intermediary between controllers and the persistence layer, handling entity-to-DTO
- * mapping, persistence operations and domain events publishing.</p>
+ * mapping, persistence operations and the billing outbox.</p>
  *
  * <p>Collaborators:
  * <ul>
  *   <li>{@link OrderRepository} for data persistence operations</li>
  *   <li>{@link OrderMapper} for converting between {@link Order} entities and {@link OrderDTO} objects</li>
- *   <li>{@link ApplicationEventPublisher} for publishing domain events such as {@link CustomBillEvent}</li>
+ *   <li>{@link BillingOutboxRepository} for recording billing requests, later delivered as
+ *       {@link CustomBillEvent}s by the {@link BillingOutboxDispatcher}</li>
+ *   <li>{@link StockReservationService} for reserving the stock of the catalog products ordered</li>
  * </ul>
  * </p>
+ *
+ * <p>Order creation runs in its own transaction, retried as a whole by the
+ * {@code transactionRetryTemplate} (see {@link com.ecommerce.payment.config.RetryConfig}) when
+ * it fails on a lock conflict. Called inside an existing transaction, it joins it and leaves
+ * retrying to the owner of that transaction; orders of products tracked by the
+ * {@link StockLedger} are then rejected, since leasing their stock would take a second
+ * connection while the caller's one is held.</p>
+ *
+ * <p>The connections it takes count against the service-wide
+ * {@link com.ecommerce.payment.datasource.ConnectionLimit} (see
+ * {@link com.ecommerce.payment.config.ExecutionConfig}).</p>
+ *
+ * <p>Order creation is timed by the {@value #CREATE_METRIC} timer (tagged {@code mode=single}
+ * or {@code mode=batch}), which publishes a percentile histogram. The timed section covers the
+ * whole call: stock reservation, the INSERT statements, retries and the commit.</p>
  */
 @Service
 @Slf4j
 public class OrderService {
 
+    /** Timer of order creation calls. */
+    public static final String CREATE_METRIC = "payment.orders.create";
+
     @Autowired
     private OrderRepository orderRepository;
 
@@ -36,37 +86,256 @@ public class OrderService {
     private OrderMapper orderMapper;
 
     @Autowired
-    private ApplicationEventPublisher publisher;
+    private BillingOutboxRepository outboxRepository;
+
+    @Autowired
+    private StockReservationService stockReservations;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private RetryTemplate transactionRetryTemplate;
+
+    @Autowired
+    private ReadYourWrites readYourWrites;
 
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer createSingleTimer;
+
+    private Timer createBatchTimer;
+
+    /**
+     * Number of orders flushed together by {@link #createOrders(List)}; matches
+     * {@code hibernate.jdbc.batch_size} so each chunk is sent as one JDBC batch per table.
+     */
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int flushSize;
+
+    /**
+     * Registers the order creation timers.
+     */
+    @PostConstruct
+    void registerMetrics() {
+        this.createSingleTimer = createTimer("single");
+        this.createBatchTimer = createTimer("batch");
+    }
+
+    private Timer createTimer(String mode) {
+        return Timer.builder(CREATE_METRIC)
+                .description("Time to validate, map and insert new orders")
+                .tag("mode", mode)
+                .publishPercentileHistogram()
+                .register(this.meterRegistry);
+    }
 
     /**
      * Create a new order from the provided {@link OrderDTO} and persist it.
      *
      * <p>The method converts the incoming DTO to a persistence entity using {@link OrderMapper},
-     * saves it using {@link OrderRepository}, logs the creation and publishes a
-     * {@link CustomBillEvent} so downstream listeners can react (for example billing
-     * or notification components).</p>
+     * saves it using {@link OrderRepository} and records a {@link BillingOutboxEvent} in the
+     * same transaction. The {@link BillingOutboxDispatcher} later publishes the corresponding
+     * {@link CustomBillEvent} so downstream listeners can react (for example billing or
+     * notification components) without delaying this call.</p>
      *
-     * <p>Note: The method logs the created order id and the event publication. Any mapping
+     * <p>Every line must reference a catalog product by {@code id}; it takes one unit of its
+     * stock and is copied from the catalog (see {@link StockReservationService}). The order
+     * amount is computed from the products by {@link OrderTotalCalculator}; any amount, price or
+     * discount sent by the client is ignored.</p>
+     *
+     * <p>The cached detail view of the order's customer is evicted once the transaction commits,
+     * and again once every replica in use has the order.</p>
+     *
+     * <p>Note: The method logs the created order id at DEBUG level, to keep logging off the
+     * hot path in production. Any mapping
      * or persistence exception will propagate to the caller and should be handled by
      * the controller or a global exception handler to produce the appropriate HTTP response.</p>
      *
      * @param orderDTO the order data transfer object containing the details to create the order (must not be null)
      * @return the persisted {@link OrderDTO} representing the created order, including generated identifiers
-     * @throws IllegalArgumentException if the provided {@code orderDTO} is invalid for mapping (implementation-specific)
-     * @throws RuntimeException for persistence or event publishing failures
+     * @throws IllegalArgumentException if the provided {@code orderDTO} is invalid for mapping, or has a line
+     *                                  that references no catalog product or an unknown one
+     * @throws InsufficientStock if a catalog product does not have enough stock
+     * @throws RuntimeException for persistence failures; neither the order nor its billing request is then stored
+     */
+    public OrderDTO createOrder(OrderDTO orderDTO) throws IllegalArgumentException, InsufficientStock, RuntimeException
+    {
+        return createOrder(orderDTO, created -> {
+        });
+    }
+
+    /**
+     * Create a new order as {@link #createOrder(OrderDTO)} does, and run additional work in
+     * the same transaction.
+     *
+     * @param orderDTO      the order to create (must not be null)
+     * @param inTransaction called with the created order before the transaction commits; it may
+     *                      run more than once if the transaction is retried
+     * @return the persisted {@link OrderDTO}
+     * @throws IllegalArgumentException if the order is invalid
+     * @throws InsufficientStock if a catalog product does not have enough stock
+     * @throws RuntimeException for persistence failures, including those of {@code inTransaction}
+     */
+    public OrderDTO createOrder(OrderDTO orderDTO, Consumer<OrderDTO> inTransaction)
+            throws IllegalArgumentException, InsufficientStock, RuntimeException
+    {
+        return this.createSingleTimer.record(() -> {
+            validate(orderDTO);
+            SortedMap<UUID, Integer> demand = this.stockReservations.demand(List.of(orderDTO));
+            OrderDTO created = inRetriedTransaction(demand, status -> {
+                Map<UUID, Product> catalog = this.stockReservations.catalog(demand);
+                // We save the order entity converted from DTO, with its total computed from the products
+                Order order = this.orderMapper.orderDTOToOrder(orderDTO);
+                this.stockReservations.copyCatalogLines(order, catalog);
+                order.setAmount(OrderTotalCalculator.total(order.getProducts()));
+                order = this.orderRepository.save(order);
+                // Record the billing request atomically with the order, it is delivered asynchronously
+                this.outboxRepository.save(new BillingOutboxEvent(order));
+                OrderDTO result = this.orderMapper.orderToOrderDTO(order);
+                inTransaction.accept(result);
+                // Last, so the product rows stay locked for as short a time as possible
+                this.stockReservations.reserveStored(demand);
+                this.orderRepository.flush();
+                return result;
+            });
+            log.debug("Order created with id: {}, billing request queued", created.getId());
+            evictCustomerDetails(List.of(orderDTO.getCustomerId()));
+            return created;
+        });
+    }
+
+    /**
+     * Create many orders in a single transaction.
+     *
+     * <p>Orders are persisted in chunks of {@code hibernate.jdbc.batch_size}. Each chunk is
+     * flushed as JDBC batches (with {@code hibernate.order_inserts} grouping the order,
+     * product and outbox inserts per table, and {@code rewriteBatchedStatements} turning
+     * each batch into multi-row INSERTs on MySQL), then detached so the persistence context
+     * stays small however many orders are submitted.</p>
+     *
+     * <p>Billing requests are written to the outbox in the same batches and delivered
+     * asynchronously by the {@link BillingOutboxDispatcher}, which drains them in groups of
+     * {@code payment.billing.outbox.batch-size}. Stock is reserved once per catalog product
+     * for the whole batch. Cached customer details are evicted once per customer after the
+     * transaction commits, and again once every replica in use has the orders.</p>
+     *
+     * <p>The batch is all-or-nothing: if any order cannot be stored, none is.</p>
+     *
+     * @param orderDTOs the orders to create (must not be null)
+     * @return the persisted orders, in the order they were submitted, including generated identifiers
+     * @throws IllegalArgumentException if any order is invalid
+     * @throws InsufficientStock if a catalog product does not have enough stock for the whole batch
+     * @throws RuntimeException for persistence failures
      */
-    public OrderDTO createOrder(OrderDTO orderDTO) throws IllegalArgumentException, RuntimeException
+    public List<OrderDTO> createOrders(List<OrderDTO> orderDTOs)
+            throws IllegalArgumentException, InsufficientStock, RuntimeException
     {
-        // We save the order entity converted from DTO
-        Order order = this.orderRepository.save(this.orderMapper.orderDTOToOrder(orderDTO));
-        log.info("Order created with id: {}", order.getId());
-        // Publish the CustomBillEvent for the created order
-        this.publisher.publishEvent(new CustomBillEvent(this, order));
-        log.info("CustomBillEvent published for Order id: {}", order.getId());
-        // Return the saved order as DTO
-        return this.orderMapper.orderToOrderDTO(order);
+        return this.createBatchTimer.record(() -> {
+            orderDTOs.forEach(this::validate);
+            SortedMap<UUID, Integer> demand = this.stockReservations.demand(orderDTOs);
+            List<OrderDTO> created = inRetriedTransaction(demand, status -> {
+                Map<UUID, Product> catalog = this.stockReservations.catalog(demand);
+                List<OrderDTO> result = new ArrayList<>(orderDTOs.size());
+                for (int from = 0; from < orderDTOs.size(); from += this.flushSize) {
+                    List<Order> orders = this.orderMapper.orderDTOsToOrders(
+                            orderDTOs.subList(from, Math.min(from + this.flushSize, orderDTOs.size())));
+                    for (Order order : orders) {
+                        this.stockReservations.copyCatalogLines(order, catalog);
+                        order.setAmount(OrderTotalCalculator.total(order.getProducts()));
+                    }
+                    this.orderRepository.saveAll(orders);
+                    this.outboxRepository.saveAll(orders.stream().map(BillingOutboxEvent::new).toList());
+                    this.orderRepository.flush();
+                    result.addAll(this.orderMapper.ordersToOrderDTOs(orders));
+                    this.entityManager.clear();
+                }
+                this.stockReservations.reserveStored(demand);
+                return result;
+            });
+            log.info("{} orders created, billing requests queued", created.size());
+            evictCustomerDetails(orderDTOs.stream().map(OrderDTO::getCustomerId).distinct().toList());
+            return created;
+        });
     }
 
+    /**
+     * Runs order creation in a transaction, with the ledger reservations of {@code demand}
+     * taken beforehand and put back if the transaction fails.
+     *
+     * <p>A transaction of our own is retried on lock conflicts. Inside the caller's
+     * transaction, the work joins it; the ledger is not used there, since a lease would wait
+     * for a second connection while the caller's one is held, so orders of tracked products
+     * are rejected.</p>
+     */
+    private <T> T inRetriedTransaction(SortedMap<UUID, Integer> demand, TransactionCallback<T> work) {
+        Map<UUID, Integer> reserved = this.stockReservations.reserveTracked(demand);
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return this.transactionTemplate.execute(work);
+        }
+        try {
+            return this.transactionRetryTemplate.execute(() -> this.transactionTemplate.execute(work));
+        } catch (RetryException e) {
+            this.stockReservations.releaseTracked(reserved);
+            if (e.getCause() instanceof RuntimeException failure) {
+                throw failure;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (RuntimeException e) {
+            this.stockReservations.releaseTracked(reserved);
+            throw e;
+        }
+    }
 
+    /**
+     * Evicts the cached detail views of the given customers once the current transaction, if
+     * any, commits.
+     *
+     * <p>With replicas, a request not pinned to the primary may cache a view read from a
+     * replica that does not have the new orders yet. The views are therefore evicted again
+     * after the {@link ReadYourWrites} window, by which every replica in use has them.</p>
+     *
+     * <p>Both evictions are timed here, so they use {@link Cache#evictIfPresent(Object)}, which
+     * the transaction-aware cache applies at once rather than deferring it to a commit that,
+     * from inside {@code afterCommit}, has already happened.</p>
+     */
+    private void evictCustomerDetails(Collection<UUID> customerIds) {
+        Cache customerDetails = this.cacheManager.getCache(CacheConfig.CUSTOMER_DETAILS);
+        Runnable evict = () -> {
+            customerIds.forEach(customerDetails::evictIfPresent);
+            if (this.readYourWrites.isEnabled()) {
+                this.taskScheduler.schedule(() -> customerIds.forEach(customerDetails::evictIfPresent),
+                        Instant.now().plus(this.readYourWrites.getWindow()));
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        } else {
+            evict.run();
+        }
+    }
+
+    /**
+     * Rejects orders that cannot be mapped to a valid entity.
+     */
+    private void validate(OrderDTO orderDTO) throws IllegalArgumentException {
+        if (orderDTO == null || orderDTO.getCustomerId() == null) {
+            throw new IllegalArgumentException("Order must reference a customer");
+        }
+    }
 }
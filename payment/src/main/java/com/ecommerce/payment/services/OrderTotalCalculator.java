@@ -0,0 +1,45 @@
+package com.ecommerce.payment.services;
+
+import com.ecommerce.payment.model.Money;
+import com.ecommerce.payment.model.Product;
+
+import java.util.List;
+
+/**
+ * Computes the total of an order from its products.
+ *
+ * <p>Each product is one line priced at {@code price} less {@code percentageDiscount}
+ * percent, rounded half up to the cent; the total is the sum of the lines. The computation
+ * runs on {@code long} cents and allocates nothing but the resulting {@link Money}, which
+ * matters for batch order creation.</p>
+ *
+ * <p>Order amounts are always computed here on the server; amounts sent by clients are
+ * ignored.</p>
+ */
+public final class OrderTotalCalculator {
+
+    private OrderTotalCalculator() {
+    }
+
+    /**
+     * Returns the total of the given products.
+     *
+     * @param products the order's products
+     * @return the discounted total, {@link Money#ZERO} for no products
+     * @throws IllegalArgumentException if a price is missing or negative, or a discount is outside 0-100
+     * @throws ArithmeticException if the total overflows
+     */
+    public static Money total(List<Product> products) throws IllegalArgumentException {
+        long total = 0;
+        // Indexed loop: no iterator allocation per order
+        for (int i = 0, size = products.size(); i < size; i++) {
+            Product product = products.get(i);
+            Money price = product.getPrice();
+            if (price == null || price.isNegative()) {
+                throw new IllegalArgumentException("Product price must not be negative: " + price);
+            }
+            total = Math.addExact(total, Money.discountMinor(price.minorUnits(), product.getPercentageDiscount()));
+        }
+        return Money.ofMinor(total);
+    }
+}
@@ -0,0 +1,298 @@
+package com.ecommerce.payment.services;
+
+import com.ecommerce.payment.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.retry.RetryException;
+import org.springframework.core.retry.RetryTemplate;
+import org.springframework.core.retry.Retryable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory stock reservation ledger for hot products.
+ *
+ * <p>A conditional stock UPDATE keeps the product row locked until the order transaction
+ * commits, so all the orders of one popular product queue behind each other. For the
+ * products tracked here, stock is instead leased from the database in blocks of
+ * {@code payment.stock.ledger.lease-size} units, with one conditional UPDATE in its own short
+ * transaction, and handed out from memory. The units held in memory are spread over
+ * {@code payment.stock.ledger.stripes} counters, each on its own cache line. A reservation
+ * compare-and-sets a randomly picked counter and falls back to the others, so concurrent
+ * reservations rarely contend on the same memory either. When no single counter holds
+ * enough, the counters are gathered under the product's lock before more stock is leased,
+ * so that units spread over several counters are never left unsold.</p>
+ *
+ * <p>Leased units are taken off {@code stock_quantity} until they are sold or returned, so
+ * stock is never oversold, even by several instances sharing the database. Units leased by an
+ * instance that dies are lost until the stock is corrected. Units still held are returned
+ * when a product is untracked and on shutdown.</p>
+ *
+ * <p>Hot products are listed in {@code payment.stock.ledger.hot-products} or registered at
+ * runtime with {@link #track(UUID)}. Callers reserve from the ledger before opening their
+ * transaction, so a lease never waits for a second connection while one is already held.</p>
+ */
+@Component
+@Slf4j
+public class StockLedger {
+
+    /** Ints per stripe: 64 bytes, so that two stripes never share a cache line. */
+    private static final int STRIDE = 16;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RetryTemplate transactionRetryTemplate;
+
+    @Value("${payment.stock.ledger.hot-products:}")
+    private List<UUID> hotProducts;
+
+    @Value("${payment.stock.ledger.stripes:16}")
+    private int stripeCount;
+
+    @Value("${payment.stock.ledger.lease-size:50}")
+    private int leaseSize;
+
+    private final ConcurrentMap<UUID, Stripes> ledgers = new ConcurrentHashMap<>();
+
+    private TransactionTemplate leaseTransaction;
+
+    /**
+     * Starts tracking the configured hot products.
+     */
+    @PostConstruct
+    void trackHotProducts() {
+        this.leaseTransaction = new TransactionTemplate(this.transactionManager);
+        this.leaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.hotProducts.forEach(this::track);
+    }
+
+    /**
+     * Returns every unit still held to the database.
+     */
+    @PreDestroy
+    void returnLeases() {
+        List.copyOf(this.ledgers.keySet()).forEach(this::untrack);
+    }
+
+    /**
+     * Returns whether the stock of a product is handed out by this ledger.
+     *
+     * @param productId product identifier
+     * @return {@code true} if the product is tracked
+     */
+    public boolean tracks(UUID productId) {
+        return this.ledgers.containsKey(productId);
+    }
+
+    /**
+     * Starts handing out the stock of a product from memory. Does nothing if it is already tracked.
+     *
+     * @param productId catalog product identifier
+     */
+    public void track(UUID productId) {
+        this.ledgers.computeIfAbsent(productId, id -> new Stripes(this.stripeCount));
+    }
+
+    /**
+     * Stops tracking a product and returns the units it still holds to the database.
+     *
+     * @param productId product identifier
+     */
+    public void untrack(UUID productId) {
+        Stripes stripes = this.ledgers.remove(productId);
+        if (stripes == null) {
+            return;
+        }
+        int held;
+        stripes.lock.lock();
+        try {
+            stripes.closed = true;
+            held = stripes.drain();
+        } finally {
+            stripes.lock.unlock();
+        }
+        returnToDatabase(productId, held);
+    }
+
+    /**
+     * Reserves units of a tracked product, leasing more stock from the database if needed.
+     *
+     * <p>Must not be called inside a transaction (see the class documentation).</p>
+     *
+     * @param productId tracked product identifier
+     * @param units     number of units to reserve
+     * @return {@code true} if the units are reserved, {@code false} if the product has too little stock left
+     * @throws IllegalArgumentException if the product is not tracked or not a catalog product
+     */
+    public boolean reserve(UUID productId, int units) throws IllegalArgumentException {
+        Stripes stripes = this.ledgers.get(productId);
+        if (stripes == null) {
+            throw new IllegalArgumentException("Product " + productId + " is not tracked by the stock ledger");
+        }
+        int home = ThreadLocalRandom.current().nextInt(stripes.count);
+        if (stripes.take(home, units)) {
+            return true;
+        }
+        // One lease at a time per product; the others wait for it rather than lease too. A lock
+        // rather than synchronized, which would pin the waiting virtual threads to their carriers.
+        stripes.lock.lock();
+        try {
+            if (stripes.take(home, units)) {
+                return true;
+            }
+            // No stripe holds enough on its own; gather them, then lease whatever is missing
+            int held = stripes.drain();
+            int missing = units - held;
+            int leased = 0;
+            if (missing > 0) {
+                try {
+                    leased = lease(productId, missing, stripes.closed ? missing : Math.max(missing, this.leaseSize));
+                } catch (RuntimeException e) {
+                    stripes.add(home, held);
+                    throw e;
+                }
+            }
+            if (missing > 0 && leased == 0) {
+                stripes.add(home, held);
+                return false;
+            }
+            stripes.add(home, held + leased - units);
+            return true;
+        } finally {
+            stripes.lock.unlock();
+        }
+    }
+
+    /**
+     * Puts reserved units back, for instance when the order that reserved them failed.
+     *
+     * @param productId product identifier
+     * @param units     number of units to put back
+     */
+    public void release(UUID productId, int units) {
+        Stripes stripes = this.ledgers.get(productId);
+        if (stripes != null) {
+            stripes.lock.lock();
+            try {
+                if (!stripes.closed) {
+                    stripes.add(ThreadLocalRandom.current().nextInt(stripes.count), units);
+                    return;
+                }
+            } finally {
+                stripes.lock.unlock();
+            }
+        }
+        returnToDatabase(productId, units);
+    }
+
+    /**
+     * Takes between {@code units} and {@code wanted} units from the database stock.
+     *
+     * @return the number of units taken, 0 if fewer than {@code units} are left
+     */
+    private int lease(UUID productId, int units, int wanted) {
+        return inNewTransaction(() -> this.leaseTransaction.execute(status -> {
+            while (true) {
+                int stock = this.productRepository.findCatalogStock(productId)
+                        .orElseThrow(() -> new IllegalArgumentException("Unknown catalog product " + productId));
+                if (stock < units) {
+                    return 0;
+                }
+                int amount = Math.max(units, Math.min(wanted, stock));
+                // Another instance may have taken stock since it was read; read it again then
+                if (this.productRepository.reserveStock(productId, amount) == 1) {
+                    log.debug("Leased {} units of product {}", amount, productId);
+                    return amount;
+                }
+            }
+        }));
+    }
+
+    private void returnToDatabase(UUID productId, int units) {
+        if (units > 0) {
+            inNewTransaction(() -> this.leaseTransaction.execute(
+                    status -> this.productRepository.releaseStock(productId, units)));
+            log.debug("Returned {} units of product {}", units, productId);
+        }
+    }
+
+    private int inNewTransaction(Retryable<Integer> work) {
+        try {
+            return this.transactionRetryTemplate.execute(work);
+        } catch (RetryException e) {
+            if (e.getCause() instanceof RuntimeException failure) {
+                throw failure;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Units held in memory for one product, spread over padded counters.
+     */
+    private static final class Stripes {
+
+        private final AtomicIntegerArray units;
+
+        private final int count;
+
+        /** Serializes leases, and additions against {@link #closed}. */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /** Set once the product is untracked; guarded by {@link #lock}. */
+        private boolean closed;
+
+        Stripes(int count) {
+            this.count = count;
+            this.units = new AtomicIntegerArray(count * STRIDE);
+        }
+
+        /**
+         * Takes units from the home stripe, or from the first other stripe holding enough.
+         */
+        boolean take(int home, int wanted) {
+            for (int i = 0; i < this.count; i++) {
+                int index = ((home + i) % this.count) * STRIDE;
+                int available = this.units.get(index);
+                while (available >= wanted) {
+                    int witness = this.units.compareAndExchange(index, available, available - wanted);
+                    if (witness == available) {
+                        return true;
+                    }
+                    available = witness;
+                }
+            }
+            return false;
+        }
+
+        void add(int stripe, int added) {
+            this.units.addAndGet(stripe * STRIDE, added);
+        }
+
+        int drain() {
+            int drained = 0;
+            for (int i = 0; i < this.count; i++) {
+                drained += this.units.getAndSet(i * STRIDE, 0);
+            }
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.ecommerce.payment.services;
+
+import com.ecommerce.payment.dto.OrderDTO;
+import com.ecommerce.payment.dto.ProductdDTO;
+import com.ecommerce.payment.error.InsufficientStock;
+import com.ecommerce.payment.model.Order;
+import com.ecommerce.payment.model.Product;
+import com.ecommerce.payment.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reserves the stock of catalog products for new orders.
+ *
+ * <p>Every order line must reference a catalog product (a product without an order) by its
+ * {@code id}, and buys one unit of it. The line is stored as a new product row of the order,
+ * copying the catalog name, description, price and discount, so that none of them is taken
+ * from the client. Orders with a line without an {@code id} are rejected.</p>
+ *
+ * <p>Stock is reserved in one of two ways:</p>
+ * <ul>
+ *   <li>Hot products tracked by the {@link StockLedger} are reserved from memory with
+ *       {@link #reserveTracked(SortedMap)}, before the order transaction starts. Orders of
+ *       these products cannot be created inside a transaction of the caller.</li>
+ *   <li>The others are reserved with {@link #reserveStored(SortedMap)}, by a conditional UPDATE
+ *       inside the order transaction. It should run last in the transaction, because the
+ *       product rows stay locked until the commit. Products are updated in identifier order,
+ *       so two orders of the same products can never deadlock on their rows.</li>
+ * </ul>
+ *
+ * <p>Reservations are counted by the {@value #RESERVATIONS_METRIC} counter, tagged with
+ * {@code path=ledger} or {@code path=database} and {@code outcome=reserved} or
+ * {@code outcome=insufficient}.</p>
+ */
+@Service
+public class StockReservationService {
+
+    /** Counter of stock reservations. */
+    public static final String RESERVATIONS_METRIC = "payment.stock.reservations";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Counter> counters = new HashMap<>();
+
+    /**
+     * Registers the reservation counters.
+     */
+    @PostConstruct
+    void registerMetrics() {
+        for (String path : List.of("ledger", "database")) {
+            for (String outcome : List.of("reserved", "insufficient")) {
+                this.counters.put(path + outcome, Counter.builder(RESERVATIONS_METRIC)
+                        .description("Stock reservations of catalog products")
+                        .tag("path", path)
+                        .tag("outcome", outcome)
+                        .register(this.meterRegistry));
+            }
+        }
+    }
+
+    /**
+     * Returns the units of catalog products the given orders buy, by product identifier.
+     *
+     * @param orderDTOs the orders
+     * @return the units per product, sorted by product identifier
+     * @throws IllegalArgumentException if a line does not reference a catalog product
+     */
+    public SortedMap<UUID, Integer> demand(Collection<OrderDTO> orderDTOs) throws IllegalArgumentException {
+        SortedMap<UUID, Integer> demand = new TreeMap<>();
+        for (OrderDTO orderDTO : orderDTOs) {
+            if (orderDTO.getProducts() == null) {
+                continue;
+            }
+            for (ProductdDTO line : orderDTO.getProducts()) {
+                if (line == null || line.getId() == null) {
+                    throw new IllegalArgumentException("Order lines must reference a catalog product");
+                }
+                demand.merge(line.getId(), 1, Integer::sum);
+            }
+        }
+        return demand;
+    }
+
+    /**
+     * Reserves the units of the products tracked by the {@link StockLedger}.
+     *
+     * <p>Must be called outside of any transaction when the demand includes tracked products,
+     * since a lease from the database takes a connection of its own: waiting for it while
+     * the transaction holds another can exhaust the pool. If an error is thrown, nothing is
+     * reserved.</p>
+     *
+     * @param demand the units per product, as returned by {@link #demand(Collection)}
+     * @return the units reserved, to {@link #releaseTracked(Map) release} if the order fails
+     * @throws InsufficientStock if a tracked product does not have enough stock
+     * @throws IllegalArgumentException if a tracked product is not a catalog product
+     * @throws IllegalStateException if the demand includes tracked products and a transaction is active
+     */
+    public Map<UUID, Integer> reserveTracked(SortedMap<UUID, Integer> demand)
+            throws InsufficientStock, IllegalArgumentException, IllegalStateException {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && demand.keySet().stream().anyMatch(this.stockLedger::tracks)) {
+            throw new IllegalStateException("Orders of products tracked by the stock ledger cannot be created"
+                    + " inside an existing transaction");
+        }
+        Map<UUID, Integer> reserved = new HashMap<>();
+        try {
+            for (Map.Entry<UUID, Integer> entry : demand.entrySet()) {
+                if (!this.stockLedger.tracks(entry.getKey())) {
+                    continue;
+                }
+                boolean taken = this.stockLedger.reserve(entry.getKey(), entry.getValue());
+                this.counters.get("ledger" + (taken ? "reserved" : "insufficient")).increment();
+                if (!taken) {
+                    throw new InsufficientStock(entry.getKey(), entry.getValue());
+                }
+                reserved.put(entry.getKey(), entry.getValue());
+            }
+            return reserved;
+        } catch (RuntimeException e) {
+            releaseTracked(reserved);
+            throw e;
+        }
+    }
+
+    /**
+     * Puts back units reserved by {@link #reserveTracked(SortedMap)}.
+     *
+     * @param reserved the units reserved
+     */
+    public void releaseTracked(Map<UUID, Integer> reserved) {
+        reserved.forEach(this.stockLedger::release);
+    }
+
+    /**
+     * Reserves the units of the products not tracked by the {@link StockLedger}, in the
+     * current transaction.
+     *
+     * @param demand the units per product, as returned by {@link #demand(Collection)}
+     * @throws InsufficientStock if a product does not have enough stock; the transaction must then roll back
+     */
+    public void reserveStored(SortedMap<UUID, Integer> demand) throws InsufficientStock {
+        for (Map.Entry<UUID, Integer> entry : demand.entrySet()) {
+            if (this.stockLedger.tracks(entry.getKey())) {
+                continue;
+            }
+            boolean taken = this.productRepository.reserveStock(entry.getKey(), entry.getValue()) == 1;
+            this.counters.get("database" + (taken ? "reserved" : "insufficient")).increment();
+            if (!taken) {
+                throw new InsufficientStock(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Loads the catalog products the given demand refers to.
+     *
+     * @param demand the units per product, as returned by {@link #demand(Collection)}
+     * @return the catalog products by identifier
+     * @throws IllegalArgumentException if a product is not a catalog product
+     */
+    public Map<UUID, Product> catalog(SortedMap<UUID, Integer> demand) throws IllegalArgumentException {
+        if (demand.isEmpty()) {
+            return Map.of();
+        }
+        Map<UUID, Product> catalog = this.productRepository.findCatalogProducts(demand.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        for (UUID id : demand.keySet()) {
+            if (!catalog.containsKey(id)) {
+                throw new IllegalArgumentException("Unknown catalog product " + id);
+            }
+        }
+        return catalog;
+    }
+
+    /**
+     * Turns the lines of an order, which all reference catalog products, into new product
+     * rows of the order, copied from the catalog.
+     *
+     * @param order   the mapped order
+     * @param catalog the catalog products, as returned by {@link #catalog(SortedMap)}
+     */
+    public void copyCatalogLines(Order order, Map<UUID, Product> catalog) {
+        for (Product line : order.getProducts()) {
+            Product source = catalog.get(line.getId());
+            line.setId(null);
+            line.setName(source.getName());
+            line.setDescription(source.getDescription());
+            line.setPrice(source.getPrice());
+            line.setPercentageDiscount(source.getPercentageDiscount());
+            line.setStockQuantity(0);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+-- Schema as created by spring.jpa.hibernate.ddl-auto=update before migrations were introduced.
+-- Databases created that way are adopted as version 1 (spring.flyway.baseline-on-migrate) and
+-- only run the later migrations. Identifiers are quoted, as Hibernate quotes them
+-- (hibernate.globally_quoted_identifiers), so table and column names are case-sensitive.
+
+CREATE TABLE `Customer` (
+    `id`          BINARY(16) NOT NULL,
+    `name`        VARCHAR(255),
+    `email`       VARCHAR(255),
+    `phoneNumber` VARCHAR(255),
+    `created_at`  DATETIME(6),
+    `status`      BIT        NOT NULL,
+    PRIMARY KEY (`id`)
+) ENGINE = InnoDB;
+
+CREATE TABLE `Order` (
+    `id`          BINARY(16) NOT NULL,
+    `description` VARCHAR(255),
+    `amount`      DOUBLE     NOT NULL,
+    `created_at`  TIME(0),
+    `customer_id` BINARY(16) NOT NULL,
+    PRIMARY KEY (`id`),
+    CONSTRAINT `fk_order_customer` FOREIGN KEY (`customer_id`) REFERENCES `Customer` (`id`)
+) ENGINE = InnoDB;
+
+CREATE TABLE `Product` (
+    `id`                 BINARY(16) NOT NULL,
+    `name`               VARCHAR(255),
+    `price`              DOUBLE     NOT NULL,
+    `description`        VARCHAR(255),
+    `stockQuantity`      INTEGER    NOT NULL,
+    `percentageDiscount` INTEGER    NOT NULL,
+    `created_at`         DATETIME(6),
+    `order_id`           BINARY(16),
+    PRIMARY KEY (`id`),
+    CONSTRAINT `fk_product_order` FOREIGN KEY (`order_id`) REFERENCES `Order` (`id`)
+) ENGINE = InnoDB;
+
+CREATE TABLE `billing_outbox` (
+    `id`              BINARY(16)                              NOT NULL,
+    `order_id`        BINARY(16)                              NOT NULL,
+    `idempotency_key` VARCHAR(255)                            NOT NULL,
+    `status`          ENUM ('DISPATCHED', 'FAILED', 'PENDING') NOT NULL,
+    `attempts`        INTEGER                                 NOT NULL,
+    `next_attempt_at` DATETIME(6)                             NOT NULL,
+    `last_error`      VARCHAR(1000),
+    `created_at`      DATETIME(6),
+    `dispatched_at`   DATETIME(6),
+    PRIMARY KEY (`id`),
+    CONSTRAINT `uk_billing_outbox_idempotency_key` UNIQUE (`idempotency_key`)
+) ENGINE = InnoDB;
+
+CREATE INDEX `idx_billing_outbox_due` ON `billing_outbox` (`status`, `next_attempt_at`);
+
+CREATE TABLE `idempotency_record` (
+    `idempotency_key` VARCHAR(255) NOT NULL,
+    `request_hash`    VARCHAR(64)  NOT NULL,
+    `order_id`        BINARY(16)   NOT NULL,
+    `response`        TINYTEXT     NOT NULL,
+    `created_at`      DATETIME(6),
+    PRIMARY KEY (`idempotency_key`)
+) ENGINE = InnoDB;
+
+CREATE INDEX `idx_idempotency_record_created_at` ON `idempotency_record` (`created_at`);
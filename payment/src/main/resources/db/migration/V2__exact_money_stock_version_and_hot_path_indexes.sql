@@ -0,0 +1,26 @@
+-- Amounts become exact DECIMAL(19,2) (see Money). Existing DOUBLE values are converted in
+-- place, rounded to the cent. MODIFY replaces the whole column definition, so NOT NULL is restated.
+ALTER TABLE `Order` MODIFY COLUMN `amount` DECIMAL(19, 2) NOT NULL;
+ALTER TABLE `Product` MODIFY COLUMN `price` DECIMAL(19, 2) NOT NULL;
+
+-- Optimistic lock of catalog products, bumped by every stock reservation (see StockReservationService)
+ALTER TABLE `Product` ADD COLUMN `version` BIGINT NOT NULL DEFAULT 0;
+
+-- The @Lob default length made this a 255-byte TINYTEXT on MySQL, too short for most order
+-- responses. The long_text_type placeholder is LONGTEXT on MySQL (spring.flyway.placeholders).
+ALTER TABLE `idempotency_record` MODIFY COLUMN `response` ${long_text_type} NOT NULL;
+
+-- Hot access paths. InnoDB secondary indexes also hold the primary key, so the order and
+-- product indexes cover the projections named below without reading the table rows. They
+-- also serve the foreign keys; MySQL then drops the indexes it created implicitly for them.
+
+-- Orders of a customer: covers OrderRepository.findSummariesByCustomerId and the
+-- Customer.orders batch loads
+CREATE INDEX `idx_order_customer_id` ON `Order` (`customer_id`, `created_at`, `amount`, `description`);
+
+-- Lines of an order: covers ProductRepository.findLinesByOrderIdIn; Order.products batch loads
+-- look their rows up through it
+CREATE INDEX `idx_product_order_id` ON `Product` (`order_id`, `name`, `price`, `percentageDiscount`);
+
+-- Keyset pages of customers: CustomerRepository.findSummariesFirst and findSummariesAfter
+CREATE INDEX `idx_customer_created_at` ON `Customer` (`created_at`, `id`);
@@ -0,0 +1,8 @@
+-- Last write time of each customer, read by the search index to pick up customers inserted or
+-- edited by other instances and writers (see CustomerSearchIndex.refresh). JPA writes set it
+-- through @UpdateTimestamp; the database keeps it current for every other writer. Existing
+-- rows start at the time of the migration.
+ALTER TABLE `Customer` ADD COLUMN `updated_at` DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
+
+-- Customers written since a point in time: CustomerRepository.findSummariesUpdatedSince
+CREATE INDEX `idx_customer_updated_at` ON `Customer` (`updated_at`);
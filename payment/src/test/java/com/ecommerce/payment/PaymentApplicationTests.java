@@ -1,13 +1,29 @@
 package com.ecommerce.payment;
 
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 @SpringBootTest
 class PaymentApplicationTests {
 
+	@Autowired
+	private PrometheusMeterRegistry prometheusMeterRegistry;
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	void prometheusScrapeExposesPoolHibernateJvmAndBillingMetrics() {
+		String scrape = this.prometheusMeterRegistry.scrape();
+
+		assertThat(scrape).contains("hikaricp_connections_active", "hibernate_statements_total",
+				"jvm_gc_memory_allocated_bytes_total", "jvm_memory_used_bytes", "payment_orders_create_seconds_bucket",
+				"payment_billing_events_total", "payment_billing_lag_seconds");
+	}
+
 }
@@ -0,0 +1,71 @@
+package com.ecommerce.payment.datasource;
+
+import com.ecommerce.payment.model.Customer;
+import com.ecommerce.payment.repository.CustomerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.context.ApplicationContext;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConnectionHoldTimeTests {
+
+    private static final String ORDERS_URI = "/customers/{id}/orders";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void requestsDoNotKeepAnEntityManagerOpen() {
+        assertThat(this.context.getBeansOfType(OpenEntityManagerInViewInterceptor.class)).isEmpty();
+    }
+
+    @Test
+    void fullViewsAreRenderedWithoutTheSession() throws Exception {
+        Customer customer = new Customer();
+        customer.setName("Full view customer");
+        customer = this.customerRepository.save(customer);
+
+        this.mockMvc.perform(get("/customers/{id}", customer.getId()).param("view", "full")).andExpect(status().isOk());
+        this.mockMvc.perform(get("/customers").param("view", "full")).andExpect(status().isOk());
+    }
+
+    @Test
+    void connectionHoldTimeIsRecordedPerRequest() throws Exception {
+        Customer customer = new Customer();
+        customer.setName("Hold time customer");
+        customer = this.customerRepository.save(customer);
+        long before = holdTimer() == null ? 0 : holdTimer().count();
+
+        this.mockMvc.perform(get(ORDERS_URI, customer.getId())).andExpect(status().isOk());
+
+        Timer timer = holdTimer();
+        assertThat(timer.count()).isEqualTo(before + 1);
+        assertThat(timer.totalTime(TimeUnit.NANOSECONDS)).isPositive();
+    }
+
+    private Timer holdTimer() {
+        return this.meterRegistry.find(ConnectionHoldTime.METRIC).tag("uri", ORDERS_URI).timer();
+    }
+}
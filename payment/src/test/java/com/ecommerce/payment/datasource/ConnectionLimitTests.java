@@ -0,0 +1,62 @@
+package com.ecommerce.payment.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class ConnectionLimitTests {
+
+    @Autowired
+    private ConnectionLimit connectionLimit;
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void applicationConnectionsCountAgainstTheSharedLimit() {
+        assertThat(this.connectionLimit.getLimit()).isEqualTo(this.primaryDataSource.getMaximumPoolSize());
+        int available = this.connectionLimit.getAvailable();
+
+        int held = this.transactionTemplate.execute(status -> {
+            this.jdbcTemplate.queryForObject("select 1", Integer.class);
+            return available - this.connectionLimit.getAvailable();
+        });
+
+        // Background refreshes may hold connections of their own meanwhile
+        assertThat(held).isPositive();
+    }
+
+    @Test
+    void callersBeyondTheLimitWaitAndThenFail() throws Exception {
+        ConnectionLimit limit = new ConnectionLimit(1, Duration.ofMillis(100));
+        DataSource first = limit.wrap(this.primaryDataSource);
+        DataSource second = limit.wrap(this.primaryDataSource);
+
+        try (Connection connection = first.getConnection()) {
+            assertThat(connection.isValid(1)).isTrue();
+            assertThatThrownBy(second::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+        }
+        try (Connection connection = second.getConnection()) {
+            assertThat(limit.getAvailable()).isZero();
+        }
+        assertThat(limit.getAvailable()).isOne();
+    }
+}
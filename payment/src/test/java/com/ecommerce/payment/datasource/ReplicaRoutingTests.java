@@ -0,0 +1,205 @@
+package com.ecommerce.payment.datasource;
+
+import com.ecommerce.payment.dto.OrderDTO;
+import com.ecommerce.payment.dto.ProductdDTO;
+import com.ecommerce.payment.model.Customer;
+import com.ecommerce.payment.model.Money;
+import com.ecommerce.payment.model.Product;
+import com.ecommerce.payment.repository.CustomerRepository;
+import com.ecommerce.payment.repository.ProductRepository;
+import com.ecommerce.payment.services.CustomerService;
+import com.ecommerce.payment.services.OrderService;
+import jakarta.servlet.http.Cookie;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routes the suite's H2 database and a second H2 instance, standing for a replica, whose lag
+ * is read from a table the tests control.
+ */
+@SpringBootTest(properties = {
+        "payment.datasource.replicas.urls=" + ReplicaRoutingTests.REPLICA_URL,
+        "payment.datasource.replicas.lag-query=select `lag` as Seconds_Behind_Source from replica_status",
+        "payment.datasource.replicas.lag-check-interval-ms=3600000"})
+class ReplicaRoutingTests {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;MODE=MySQL;DATABASE_TO_UPPER=FALSE;DB_CLOSE_DELAY=-1";
+
+    private static final JdbcTemplate REPLICA = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaDataSource;
+
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeAll
+    static void createReplica() {
+        Flyway.configure()
+                .dataSource(REPLICA_URL, "sa", "")
+                .placeholders(Map.of("long_text_type", "CLOB"))
+                .load()
+                .migrate();
+        REPLICA.execute("create table if not exists replica_status (`lag` bigint)");
+    }
+
+    @BeforeEach
+    void replicaIsCurrent() {
+        setLag(0);
+    }
+
+    @AfterEach
+    void resetReplica() {
+        setLag(0);
+    }
+
+    @Test
+    void readOnlyTransactionsRunOnTheReplicaAndOthersOnThePrimary() {
+        assertThat(database(true)).isEqualTo("replica");
+        assertThat(database(false)).isEqualTo("payment");
+    }
+
+    @Test
+    void laggingOrUnreachableReplicasAreSkipped() {
+        setLag(60);
+        assertThat(database(true)).isEqualTo("payment");
+
+        REPLICA.update("delete from replica_status");
+        this.replicaDataSource.checkLag();
+        assertThat(database(true)).isEqualTo("payment");
+    }
+
+    @Test
+    void clientsReadFromThePrimaryAfterTheirWrites() throws Exception {
+        AtomicReference<String> readAfterWrite = new AtomicReference<>();
+        MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+        this.readYourWrites.doFilter(new MockHttpServletRequest(), writeResponse, (request, response) -> {
+            database(false);
+            readAfterWrite.set(database(true));
+        });
+        Cookie pin = writeResponse.getCookie(ReadYourWrites.COOKIE);
+
+        assertThat(readAfterWrite).hasValue("payment");
+        assertThat(pin).isNotNull();
+        assertThat(readInRequest(pin)).isEqualTo("payment");
+        assertThat(readInRequest(null)).isEqualTo("replica");
+        assertThat(readInRequest(new Cookie(ReadYourWrites.COOKIE, "0"))).isEqualTo("replica");
+    }
+
+    @Test
+    void cachesAreNotFilledFromALaggingReplica() throws Exception {
+        Customer customer = new Customer();
+        customer.setName("Replicated customer");
+        UUID customerId = this.customerRepository.save(customer).getId();
+        Product catalog = new Product();
+        catalog.setName("Replicated product");
+        catalog.setPrice(Money.parse("5.00"));
+        catalog.setStockQuantity(1);
+        ProductdDTO line = new ProductdDTO();
+        line.setId(this.productRepository.save(catalog).getId());
+        OrderDTO order = new OrderDTO();
+        order.setDescription("Replicated order");
+        order.setCustomerId(customerId);
+        order.getProducts().add(line);
+        // The replica has the customer, but not yet the order created below
+        REPLICA.update("insert into `Customer` (`id`, `name`, `created_at`, `status`) values (?, ?, ?, ?)",
+                key(customerId), "Replicated customer", LocalDateTime.now(), false);
+        MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+        AtomicReference<OrderDTO> created = new AtomicReference<>();
+        this.readYourWrites.doFilter(new MockHttpServletRequest(), writeResponse,
+                (request, response) -> created.set(this.orderService.createOrder(order)));
+        Cookie pin = writeResponse.getCookie(ReadYourWrites.COOKIE);
+
+        // Another client reads the customer from the replica first
+        assertThat(inRequest(null, () -> this.customerService.getCustomerDetail(customerId).orders())).isEmpty();
+        assertThat(inRequest(pin, () -> this.customerService.getCustomerDetail(customerId).orders())).hasSize(1);
+
+        // The replica then has the order, but not yet its lines
+        REPLICA.update("insert into `Order` (`id`, `description`, `amount`, `customer_id`) values (?, ?, ?, ?)",
+                key(created.get().getId()), "Replicated order", 5, key(customerId));
+        assertThat(inRequest(null, () -> this.customerService.getCustomerOrders(customerId.toString())))
+                .singleElement().satisfies(lines -> assertThat(lines.products()).isEmpty());
+        assertThat(inRequest(pin, () -> this.customerService.getCustomerOrders(customerId.toString())))
+                .singleElement().satisfies(lines -> assertThat(lines.products()).hasSize(1));
+    }
+
+    private <T> T inRequest(Cookie cookie, Callable<T> read) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (cookie != null) {
+            request.setCookies(cookie);
+        }
+        AtomicReference<T> result = new AtomicReference<>();
+        this.readYourWrites.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            try {
+                result.set(read.call());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        return result.get();
+    }
+
+    private static byte[] key(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+
+    private String readInRequest(Cookie cookie) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (cookie != null) {
+            request.setCookies(cookie);
+        }
+        AtomicReference<String> database = new AtomicReference<>();
+        this.readYourWrites.doFilter(request, new MockHttpServletResponse(), (req, res) -> database.set(database(true)));
+        return database.get();
+    }
+
+    private String database(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(this.transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> this.jdbcTemplate.queryForObject("select database()", String.class));
+    }
+
+    private void setLag(long seconds) {
+        REPLICA.update("delete from replica_status");
+        REPLICA.update("insert into replica_status (`lag`) values (?)", seconds);
+        this.replicaDataSource.checkLag();
+    }
+}
@@ -0,0 +1,169 @@
+package com.ecommerce.payment.events.bills;
+
+import com.ecommerce.payment.dto.OrderDTO;
+import com.ecommerce.payment.model.BillingOutboxEvent;
+import com.ecommerce.payment.model.Customer;
+import com.ecommerce.payment.repository.BillingOutboxRepository;
+import com.ecommerce.payment.repository.CustomerRepository;
+import com.ecommerce.payment.services.OrderService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@RecordApplicationEvents
+class BillingOutboxDispatcherTests {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private BillingOutboxDispatcher dispatcher;
+
+    @Autowired
+    private BillingOutboxRepository outboxRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private FlakyBillingListener flakyListener;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void resetListener() {
+        this.flakyListener.failures.set(0);
+        this.flakyListener.deliveries.clear();
+    }
+
+    @Test
+    void orderCreationQueuesBillingUntilDispatched() {
+        UUID orderId = createOrder();
+        double dispatched = deliveries("dispatched");
+
+        assertThat(outboxRow(orderId).getStatus()).isEqualTo(BillingOutboxEvent.Status.PENDING);
+        assertThat(this.events.stream(CustomBillEvent.class)).isEmpty();
+
+        this.dispatcher.dispatchPending();
+
+        BillingOutboxEvent row = outboxRow(orderId);
+        assertThat(row.getStatus()).isEqualTo(BillingOutboxEvent.Status.DISPATCHED);
+        assertThat(this.events.stream(CustomBillEvent.class))
+                .flatMap(CustomBillEvent::getBills)
+                .anySatisfy(bill -> {
+                    assertThat(bill.order().getId()).isEqualTo(orderId);
+                    assertThat(bill.idempotencyKey()).isEqualTo(row.getIdempotencyKey());
+                });
+        assertThat(deliveries("dispatched")).isGreaterThanOrEqualTo(dispatched + 1);
+    }
+
+    @Test
+    void claimedRowsAreDeliveredAsOneEvent() {
+        List<UUID> orderIds = List.of(createOrder(), createOrder(), createOrder());
+
+        this.dispatcher.dispatchPending();
+
+        assertThat(this.events.stream(CustomBillEvent.class)).singleElement()
+                .satisfies(event -> assertThat(event.getBills())
+                        .extracting(bill -> bill.order().getId())
+                        .containsAll(orderIds));
+        assertThat(orderIds).allSatisfy(orderId ->
+                assertThat(outboxRow(orderId).getStatus()).isEqualTo(BillingOutboxEvent.Status.DISPATCHED));
+    }
+
+    @Test
+    void aFailingBatchIsDeliveredRowByRow() {
+        List<UUID> orderIds = List.of(createOrder(), createOrder());
+        this.flakyListener.failures.set(1);
+        double dispatched = deliveries("dispatched");
+
+        this.dispatcher.dispatchPending();
+
+        List<Integer> deliveries = this.flakyListener.deliveries;
+        assertThat(deliveries.getFirst()).isGreaterThanOrEqualTo(2);
+        assertThat(deliveries.subList(1, deliveries.size())).hasSize(deliveries.getFirst()).containsOnly(1);
+        assertThat(orderIds).allSatisfy(orderId ->
+                assertThat(outboxRow(orderId).getStatus()).isEqualTo(BillingOutboxEvent.Status.DISPATCHED));
+        assertThat(deliveries("dispatched")).isGreaterThanOrEqualTo(dispatched + 2);
+    }
+
+    @Test
+    void failedDeliveryIsRescheduledWithBackoff() {
+        UUID orderId = createOrder();
+        this.flakyListener.failures.set(2);
+        double retried = deliveries("retried");
+
+        this.dispatcher.dispatchPending();
+
+        BillingOutboxEvent row = outboxRow(orderId);
+        assertThat(row.getStatus()).isEqualTo(BillingOutboxEvent.Status.PENDING);
+        assertThat(row.getAttempts()).isEqualTo(1);
+        assertThat(row.getLastError()).isEqualTo("billing provider unavailable");
+        assertThat(row.getNextAttemptAt()).isAfter(LocalDateTime.now());
+        assertThat(deliveries("retried")).isEqualTo(retried + 1);
+        assertThat(this.meterRegistry.get(BillingOutboxDispatcher.LAG_METRIC).timeGauge().value()).isPositive();
+    }
+
+    private UUID createOrder() {
+        Customer customer = new Customer();
+        customer.setName("Outbox customer");
+        customer = this.customerRepository.save(customer);
+        OrderDTO order = new OrderDTO();
+        order.setDescription("Outbox order");
+        order.setCustomerId(customer.getId());
+        return this.orderService.createOrder(order).getId();
+    }
+
+    private double deliveries(String outcome) {
+        return this.meterRegistry.get(BillingOutboxDispatcher.EVENTS_METRIC).tag("outcome", outcome).counter().count();
+    }
+
+    private BillingOutboxEvent outboxRow(UUID orderId) {
+        return this.outboxRepository.findByOrderId(orderId).orElseThrow();
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        FlakyBillingListener flakyBillingListener() {
+            return new FlakyBillingListener();
+        }
+    }
+
+    static class FlakyBillingListener implements ApplicationListener<CustomBillEvent> {
+
+        final AtomicInteger failures = new AtomicInteger();
+
+        /** Number of bills of every event received, failed ones included. */
+        final List<Integer> deliveries = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onApplicationEvent(CustomBillEvent event) {
+            this.deliveries.add(event.getBills().size());
+            if (this.failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("billing provider unavailable");
+            }
+        }
+    }
+}
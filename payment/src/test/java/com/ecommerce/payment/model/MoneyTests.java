@@ -0,0 +1,52 @@
+package com.ecommerce.payment.model;
+
+import com.ecommerce.payment.dto.OrderDTO;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.DatabindException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTests {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @Test
+    void parsesAndFormatsExactAmounts() {
+        assertThat(Money.parse("0.1").plus(Money.parse("0.2"))).isEqualTo(Money.parse("0.30"));
+        assertThat(Money.parse("12.5")).hasToString("12.50");
+        assertThat(Money.ofMinor(-5)).hasToString("-0.05");
+        assertThat(Money.parse("12.50").toBigDecimal()).isEqualByComparingTo(new BigDecimal("12.5"));
+    }
+
+    @Test
+    void rejectsSubCentAmounts() {
+        assertThatThrownBy(() -> Money.parse("1.005")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void discountsRoundHalfUpToTheCent() {
+        assertThat(Money.parse("0.05").discountedBy(50)).isEqualTo(Money.parse("0.03"));
+        assertThat(Money.parse("9.99").discountedBy(15)).isEqualTo(Money.parse("8.49"));
+        assertThat(Money.parse("10").discountedBy(100)).isEqualTo(Money.ZERO);
+        assertThatThrownBy(() -> Money.parse("10").discountedBy(101)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void roundTripsThroughJson() {
+        OrderDTO order = new OrderDTO();
+        order.setAmount(Money.parse("1234.5"));
+
+        String json = this.jsonMapper.writeValueAsString(order);
+
+        assertThat(json).contains("\"amount\":1234.50");
+        assertThat(this.jsonMapper.readValue(json, OrderDTO.class).getAmount()).isEqualTo(order.getAmount());
+        assertThat(this.jsonMapper.readValue("{\"amount\":\"0.10\"}", OrderDTO.class).getAmount())
+                .isEqualTo(Money.ofMinor(10));
+        assertThatThrownBy(() -> this.jsonMapper.readValue("{\"amount\":0.001}", OrderDTO.class))
+                .isInstanceOf(DatabindException.class);
+    }
+}
@@ -0,0 +1,30 @@
+package com.ecommerce.payment.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TimeOrderedUuidGeneratorTests {
+
+    @Test
+    void generatesVersion7Identifiers() {
+        UUID id = TimeOrderedUuidGenerator.next();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(id.getMostSignificantBits() >>> 16).isCloseTo(System.currentTimeMillis(), within(1_000L));
+    }
+
+    @Test
+    void identifiersAreStrictlyIncreasing() {
+        UUID previous = TimeOrderedUuidGenerator.next();
+        for (int i = 0; i < 100_000; i++) {
+            UUID next = TimeOrderedUuidGenerator.next();
+            assertThat(next).isGreaterThan(previous);
+            previous = next;
+        }
+    }
+}
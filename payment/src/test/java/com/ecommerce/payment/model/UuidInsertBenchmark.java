@@ -0,0 +1,78 @@
+package com.ecommerce.payment.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Insert throughput of random (v4) versus time-ordered (v7) {@code BINARY(16)} primary keys.
+ *
+ * <p>Runs against a file-backed H2 database standing in for MySQL, so that index pages are
+ * actually written. Opt-in because it takes a while:</p>
+ * <pre>
+ * ./mvnw test -Dtest=UuidInsertBenchmark -Dbenchmark=true [-Dbenchmark.rows=1000000]
+ * </pre>
+ * <p>Point {@code -Dbenchmark.url}, {@code -Dbenchmark.user} and {@code -Dbenchmark.password}
+ * at a local MySQL to measure InnoDB instead.</p>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class UuidInsertBenchmark {
+
+    private static final int BATCH_SIZE = 1_000;
+
+    @Test
+    void compareRandomAndTimeOrderedKeys() throws SQLException {
+        int rows = Integer.getInteger("benchmark.rows", 500_000);
+        String url = System.getProperty("benchmark.url", "jdbc:h2:./target/uuid-benchmark;MODE=MySQL");
+        String user = System.getProperty("benchmark.user", "sa");
+        String password = System.getProperty("benchmark.password", "");
+
+        try (Connection connection = DriverManager.getConnection(url, user, password)) {
+            connection.setAutoCommit(false);
+            report("v4 (random)", insert(connection, rows, UUID::randomUUID), rows);
+            report("v7 (time-ordered)", insert(connection, rows, TimeOrderedUuidGenerator::next), rows);
+        }
+    }
+
+    private static long insert(Connection connection, int rows, Supplier<UUID> ids) throws SQLException {
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("drop table if exists uuid_benchmark");
+            ddl.execute("create table uuid_benchmark (id binary(16) primary key, payload varchar(64))");
+        }
+        long start = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement("insert into uuid_benchmark values (?, ?)")) {
+            for (int i = 1; i <= rows; i++) {
+                insert.setBytes(1, toBytes(ids.get()));
+                insert.setString(2, "payload-" + i);
+                insert.addBatch();
+                if (i % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+
+    private static void report(String label, long nanos, int rows) {
+        System.out.printf("%-18s %,d rows in %,d ms (%,.0f rows/s)%n",
+                label, rows, nanos / 1_000_000, rows / (nanos / 1e9));
+    }
+}
@@ -0,0 +1,106 @@
+package com.ecommerce.payment.repository;
+
+import com.ecommerce.payment.dto.CustomerSummaryDTO;
+import com.ecommerce.payment.model.Customer;
+import com.ecommerce.payment.model.Order;
+import com.ecommerce.payment.model.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class CustomerRepositoryTests {
+
+    private static final int ORDERS_PER_CUSTOMER = 3;
+
+    private static final int PRODUCTS_PER_ORDER = 2;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 30})
+    void customerPageIsLoadedWithAFixedNumberOfStatements(int pageSize) {
+        for (int i = 0; i < pageSize; i++) {
+            this.entityManager.persist(customer(i));
+        }
+        this.entityManager.flush();
+        this.entityManager.clear();
+
+        Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Slice<UUID> ids = this.customerRepository.findIds(PageRequest.of(0, pageSize));
+        List<Customer> customers = this.customerRepository.findByIdIn(ids.getContent());
+        int products = customers.stream()
+                .flatMap(customer -> customer.getOrders().stream())
+                .mapToInt(order -> order.getProducts().size())
+                .sum();
+
+        assertThat(customers).hasSize(pageSize);
+        assertThat(products).isEqualTo(pageSize * ORDERS_PER_CUSTOMER * PRODUCTS_PER_ORDER);
+        // ids page, customers with orders, one batch of products
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void keysetPagesVisitEveryCustomerOnceInOrder() {
+        for (int i = 0; i < 25; i++) {
+            this.entityManager.persist(customer(i));
+        }
+        this.entityManager.flush();
+        this.entityManager.clear();
+
+        PageRequest limit = PageRequest.of(0, 10);
+        List<CustomerSummaryDTO> visited = new ArrayList<>();
+        Slice<CustomerSummaryDTO> slice = this.customerRepository.findSummariesFirst(limit);
+        visited.addAll(slice.getContent());
+        while (slice.hasNext()) {
+            CustomerSummaryDTO last = visited.get(visited.size() - 1);
+            slice = this.customerRepository.findSummariesAfter(last.createdAt(), last.id(), limit);
+            visited.addAll(slice.getContent());
+        }
+
+        assertThat(visited).hasSize(25);
+        assertThat(visited).extracting(CustomerSummaryDTO::id).doesNotHaveDuplicates();
+    }
+
+    private static Customer customer(int index) {
+        Customer customer = new Customer();
+        customer.setName("Customer " + index);
+        customer.setEmail("customer" + index + "@example.com");
+        for (int i = 0; i < ORDERS_PER_CUSTOMER; i++) {
+            Order order = new Order();
+            order.setDescription("Order " + i);
+            order.setCustomer(customer);
+            for (int j = 0; j < PRODUCTS_PER_ORDER; j++) {
+                Product product = new Product();
+                product.setName("Product " + j);
+                product.setOrder(order);
+                order.getProducts().add(product);
+            }
+            customer.getOrders().add(order);
+        }
+        return customer;
+    }
+}
@@ -0,0 +1,104 @@
+package com.ecommerce.payment.repository;
+
+import com.ecommerce.payment.model.Customer;
+import com.ecommerce.payment.model.Order;
+import com.ecommerce.payment.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Second-level and query cache entries are only written once the data is committed, so
+ * these tests run without the usual rolled-back test transaction.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductRepositoryTests {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Customer customer;
+
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        this.customer = new Customer();
+        this.customer.setName("Catalog customer");
+        this.order = new Order();
+        this.order.setCustomer(this.customer);
+        this.customer.getOrders().add(this.order);
+        for (int i = 0; i < 3; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setOrder(this.order);
+            this.order.getProducts().add(product);
+        }
+        this.customerRepository.save(this.customer);
+        this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.customerRepository.deleteById(this.customer.getId());
+        this.entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void productsAreServedFromTheSecondLevelCache() {
+        readProducts();
+        long statements = this.statistics.getPrepareStatementCount();
+        long hits = this.statistics.getDomainDataRegionStatistics(Product.CACHE_REGION).getHitCount();
+
+        readProducts();
+
+        // Only the order the products belong to, which is not cached, is read again
+        assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(statements + 1);
+        assertThat(this.statistics.getDomainDataRegionStatistics(Product.CACHE_REGION).getHitCount()).isEqualTo(hits + 3);
+    }
+
+    @Test
+    void productLinesAreServedFromTheQueryCache() {
+        List<UUID> orderIds = List.of(this.order.getId());
+        this.productRepository.findLinesByOrderIdIn(orderIds);
+        long statements = this.statistics.getPrepareStatementCount();
+
+        assertThat(this.productRepository.findLinesByOrderIdIn(orderIds)).hasSize(3);
+        assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(statements);
+        assertThat(this.statistics.getQueryCacheHitCount()).isPositive();
+    }
+
+    private void readProducts() {
+        EntityManager entityManager = this.entityManagerFactory.createEntityManager();
+        try {
+            for (Product product : this.order.getProducts()) {
+                assertThat(entityManager.find(Product.class, product.getId())).isNotNull();
+            }
+        } finally {
+            entityManager.close();
+        }
+    }
+}
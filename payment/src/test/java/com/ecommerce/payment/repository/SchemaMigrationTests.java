@@ -0,0 +1,112 @@
+package com.ecommerce.payment.repository;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the Flyway migrations against the suite's H2 database in MySQL mode: the context only
+ * starts if Hibernate validates the entities against the migrated schema, and every hot access
+ * path must be planned through an index rather than a full table scan.
+ *
+ * <p>Each plan is expected to contain the index or the index condition of its access path. H2
+ * keeps indexes of its own for the foreign keys, where MySQL drops them in favour of the
+ * migration's indexes, so lookups by foreign key are checked by their condition.</p>
+ */
+@SpringBootTest
+class SchemaMigrationTests {
+
+    private static final UUID ID = UUID.randomUUID();
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void everyMigrationIsApplied() {
+        assertThat(this.flyway.info().pending()).isEmpty();
+        assertThat(Arrays.stream(this.flyway.info().applied()).map(MigrationInfo::getVersion).map(Object::toString))
+                .contains("1", "2", "3");
+    }
+
+    @Test
+    void moneyColumnsStayNotNull() {
+        assertThat(this.jdbcTemplate.queryForList("select `IS_NULLABLE` from `INFORMATION_SCHEMA`.`COLUMNS`"
+                        + " where (`TABLE_NAME`, `COLUMN_NAME`) in (('Order', 'amount'), ('Product', 'price'))", String.class))
+                .containsExactly("NO", "NO");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotPaths")
+    void hotPathIsPlannedOnAnIndex(String path, String access, String sql, Object[] parameters) {
+        String plan = String.join("\n", this.jdbcTemplate.queryForList("explain " + sql, String.class, parameters));
+
+        assertThat(plan).as(path).doesNotContainIgnoringCase("tableScan").containsIgnoringCase(access);
+    }
+
+    static Stream<Arguments> hotPaths() {
+        return Stream.of(
+                Arguments.of("customer id page", "primary_key",
+                        "select `id` from `Customer` order by `id` limit 20 offset 40",
+                        new Object[0]),
+                Arguments.of("customer by id", "primary_key",
+                        "select `id`, `name`, `email`, `phoneNumber`, `created_at` from `Customer` where `id` = ?",
+                        new Object[]{ID}),
+                Arguments.of("first customer keyset page", "idx_customer_created_at",
+                        "select `id`, `name`, `email`, `phoneNumber`, `created_at` from `Customer`"
+                                + " order by `created_at`, `id` limit 20",
+                        new Object[0]),
+                Arguments.of("next customer keyset page", "idx_customer_created_at",
+                        "select `id`, `name`, `email`, `phoneNumber`, `created_at` from `Customer`"
+                                + " where `created_at` >= ? and (`created_at` > ? or `id` > ?)"
+                                + " order by `created_at`, `id` limit 20",
+                        new Object[]{NOW, NOW, ID}),
+                Arguments.of("customers updated since", "idx_customer_updated_at",
+                        "select `id`, `name`, `email`, `phoneNumber`, `created_at` from `Customer` where `updated_at` >= ?",
+                        new Object[]{NOW}),
+                Arguments.of("order summaries of a customer", ": customer_id = ?1",
+                        "select `id`, `description`, `amount`, `created_at` from `Order` where `customer_id` = ?",
+                        new Object[]{ID}),
+                Arguments.of("orders of a customer page", ": customer_id IN(?1, ?2)",
+                        "select `id`, `description`, `amount`, `created_at`, `customer_id` from `Order`"
+                                + " where `customer_id` in (?, ?)",
+                        new Object[]{ID, UUID.randomUUID()}),
+                Arguments.of("lines of an order page", ": order_id IN(?1, ?2)",
+                        "select `order_id`, `id`, `name`, `price`, `percentageDiscount` from `Product`"
+                                + " where `order_id` in (?, ?)",
+                        new Object[]{ID, UUID.randomUUID()}),
+                Arguments.of("customer graph rows", ": order_id = o.id",
+                        "select c.`id`, o.`id`, p.`id` from `Customer` c"
+                                + " left join `Order` o on o.`customer_id` = c.`id`"
+                                + " left join `Product` p on p.`order_id` = o.`id`"
+                                + " where c.`id` in (?, ?) order by c.`id`, o.`id`, p.`id`",
+                        new Object[]{ID, UUID.randomUUID()}),
+                Arguments.of("catalog stock", "primary_key",
+                        "select `stockQuantity` from `Product` where `id` = ? and `order_id` is null",
+                        new Object[]{ID}),
+                Arguments.of("due outbox events", "idx_billing_outbox_due",
+                        "select `id` from `billing_outbox` where `status` = 'PENDING' and `next_attempt_at` <= ?"
+                                + " order by `next_attempt_at` limit 100",
+                        new Object[]{NOW}),
+                Arguments.of("expired idempotency records", "idx_idempotency_record_created_at",
+                        "select `idempotency_key` from `idempotency_record` where `created_at` < ?",
+                        new Object[]{NOW}));
+    }
+}
@@ -0,0 +1,117 @@
+package com.ecommerce.payment.services;
+
+import com.ecommerce.payment.dto.CustomerDetailDTO;
+import com.ecommerce.payment.dto.OrderDTO;
+import com.ecommerce.payment.model.Customer;
+import com.ecommerce.payment.repository.CustomerRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs with a long batch window, so that every concurrent lookup of a test joins the batch
+ * of the first one.
+ */
+@SpringBootTest(properties = "payment.customers.batch.window=500ms")
+@AutoConfigureMockMvc
+class CustomerBatchLoaderTests {
+
+    @Autowired
+    private CustomerBatchLoader customerBatchLoader;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void concurrentLookupsAreFetchedAsOneBatch() throws Exception {
+        List<UUID> ids = new ArrayList<>(IntStream.range(0, 10).mapToObj(i -> createCustomer("Batched " + i)).toList());
+        createOrder(ids.get(0));
+        ids.add(UUID.randomUUID());
+        DistributionSummary batches = this.meterRegistry.get(CustomerBatchLoader.BATCH_SIZE_METRIC).summary();
+        long count = batches.count();
+        double total = batches.totalAmount();
+
+        List<Optional<CustomerDetailDTO>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Optional<CustomerDetailDTO>>> lookups = ids.stream()
+                    .map(id -> executor.submit(() -> this.customerBatchLoader.load(id)))
+                    .toList();
+            for (Future<Optional<CustomerDetailDTO>> lookup : lookups) {
+                results.add(lookup.get());
+            }
+        }
+
+        assertThat(batches.count()).isEqualTo(count + 1);
+        assertThat(batches.totalAmount()).isEqualTo(total + ids.size());
+        for (int i = 0; i < 10; i++) {
+            assertThat(results.get(i)).get().extracting(CustomerDetailDTO::id).isEqualTo(ids.get(i));
+        }
+        assertThat(results.get(0).orElseThrow().orders()).hasSize(1);
+        assertThat(results.get(10)).isEmpty();
+    }
+
+    @Test
+    void customersAreListedByIds() throws Exception {
+        UUID first = createCustomer("Listed first");
+        UUID second = createCustomer("Listed second");
+        createOrder(second);
+        String ids = List.of(second, UUID.randomUUID(), first, second).stream().map(UUID::toString)
+                .collect(Collectors.joining(","));
+
+        this.mockMvc.perform(get("/customers").param("ids", ids).param("view", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id").value(second.toString()))
+                .andExpect(jsonPath("$[0].orders", hasSize(1)))
+                .andExpect(jsonPath("$[0].orders[0].products").doesNotExist())
+                .andExpect(jsonPath("$[1].id").value(first.toString()));
+        this.mockMvc.perform(get("/customers").param("ids", ids))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].orders", hasSize(1)))
+                .andExpect(jsonPath("$[0].orders[0].products").isArray())
+                .andExpect(jsonPath("$[1].name").value("Listed first"));
+        this.mockMvc.perform(get("/customers").param("ids", "not-a-uuid")).andExpect(status().isBadRequest());
+    }
+
+    private UUID createCustomer(String name) {
+        Customer customer = new Customer();
+        customer.setName(name);
+        return this.customerRepository.save(customer).getId();
+    }
+
+    private void createOrder(UUID customerId) {
+        OrderDTO order = new OrderDTO();
+        order.setDescription("Batched order");
+        order.setCustomerId(customerId);
+        this.orderService.createOrder(order);
+    }
+}
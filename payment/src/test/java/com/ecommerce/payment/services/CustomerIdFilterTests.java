@@ -0,0 +1,89 @@
+package com.ecommerce.payment.services;
+
+import com.ecommerce.payment.error.CustomerNotFound;
+import com.ecommerce.payment.model.Customer;
+import com.ecommerce.payment.repository.CustomerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class CustomerIdFilterTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerIdFilter customerIdFilter;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void buildFilter() {
+        this.customerIdFilter.refresh();
+    }
+
+    @Test
+    void unknownIdsAreRejectedWithoutALookup() throws Exception {
+        long unknown = IntStream.range(0, 1000)
+                .filter(i -> !this.customerIdFilter.mightExist(UUID.randomUUID()))
+                .count();
+        double absent = lookups("absent");
+
+        assertThat(unknown).isGreaterThan(950);
+        this.mockMvc.perform(get("/customers/{id}", UUID.randomUUID())).andExpect(status().isNotFound())
+                .andExpect(content().string(""));
+        assertThat(lookups("absent")).isEqualTo(absent + 1);
+        assertThat(CustomerNotFound.INSTANCE.getStackTrace()).isEmpty();
+    }
+
+    @Test
+    void customersInsertedThroughJpaAreFoundRightAway() throws Exception {
+        Customer customer = new Customer();
+        customer.setName("Filtered customer");
+        UUID id = this.customerRepository.save(customer).getId();
+
+        assertThat(this.customerIdFilter.mightExist(id)).isTrue();
+        this.mockMvc.perform(get("/customers/{id}", id)).andExpect(status().isOk());
+    }
+
+    @Test
+    void customersInsertedByOtherWritersAreFoundAfterARefresh() {
+        UUID id = UUID.randomUUID();
+        byte[] key = ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits())
+                .array();
+        // Other writers do not set created_at, only the database-maintained updated_at is set
+        this.jdbcTemplate.update("insert into `Customer` (`id`, `name`, `status`) values (?, ?, ?)",
+                key, "Inserted by another writer", false);
+
+        this.customerIdFilter.refresh();
+
+        assertThat(this.customerIdFilter.mightExist(id)).isTrue();
+    }
+
+    private double lookups(String result) {
+        return this.meterRegistry.get(CustomerIdFilter.LOOKUPS_METRIC).tag("result", result).counter().count();
+    }
+}
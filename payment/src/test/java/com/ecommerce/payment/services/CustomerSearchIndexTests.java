@@ -0,0 +1,101 @@
+package com.ecommerce.payment.services;
+
+import com.ecommerce.payment.dto.CustomerSummaryDTO;
+import com.ecommerce.payment.model.Customer;
+import com.ecommerce.payment.repository.CustomerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+@SpringBootTest
+class CustomerSearchIndexTests {
+
+    @Autowired
+    private CustomerSearchIndex customerSearchIndex;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void customersAreFoundByPartialNameEmailOrPhoneNumber() {
+        String token = token();
+        Customer customer = save("Ada " + token + " Lovelace", token + "@example.com", "+1 (555) 010-4477");
+
+        assertThat(ids(token.toUpperCase())).containsExactly(customer.getId());
+        assertThat(ids(token + "@example")).containsExactly(customer.getId());
+        assertThat(ids("010-4477")).contains(customer.getId());
+        assertThat(ids(token + "x")).isEmpty();
+    }
+
+    @Test
+    void updatedAndDeletedCustomersAreReindexed() {
+        String before = token();
+        String after = token();
+        Customer customer = save(before, before + "@example.com", null);
+        assertThat(ids(before)).containsExactly(customer.getId());
+
+        customer.setName(after);
+        customer.setEmail(after + "@example.com");
+        this.customerRepository.save(customer);
+        assertThat(ids(before)).isEmpty();
+        assertThat(this.customerSearchIndex.search(after, 10)).extracting(CustomerSummaryDTO::name).containsExactly(after);
+
+        this.customerRepository.deleteById(customer.getId());
+        assertThat(ids(after)).isEmpty();
+    }
+
+    @Test
+    void customersWrittenElsewhereAreFoundAfterARefresh() {
+        String edited = token();
+        String inserted = token();
+        Customer customer = save(token(), null, null);
+        assertThat(ids(customer.getName())).containsExactly(customer.getId());
+        UUID id = UUID.randomUUID();
+
+        this.jdbcTemplate.update("update `Customer` set `name` = ? where `id` = ?", edited, key(customer.getId()));
+        this.jdbcTemplate.update("insert into `Customer` (`id`, `name`, `created_at`, `status`) values (?, ?, ?, ?)",
+                key(id), inserted, LocalDateTime.now(), false);
+        this.customerSearchIndex.refresh();
+
+        assertThat(ids(edited)).containsExactly(customer.getId());
+        assertThat(ids(customer.getName())).isEmpty();
+        assertThat(ids(inserted)).containsExactly(id);
+    }
+
+    @Test
+    void shortQueriesAreRejected() {
+        assertThatIllegalArgumentException().isThrownBy(() -> this.customerSearchIndex.search(" ab ", 10));
+    }
+
+    private Customer save(String name, String email, String phoneNumber) {
+        Customer customer = new Customer();
+        customer.setName(name);
+        customer.setEmail(email);
+        customer.setPhoneNumber(phoneNumber);
+        return this.customerRepository.save(customer);
+    }
+
+    private List<UUID> ids(String query) {
+        return this.customerSearchIndex.search(query, 100).stream().map(CustomerSummaryDTO::id).toList();
+    }
+
+    private static byte[] key(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+
+    private static String token() {
+        return "q" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+    }
+}
@@ -0,0 +1,139 @@
+package com.ecommerce.payment.services;
+
+import com.ecommerce.payment.config.CacheConfig;
+import com.ecommerce.payment.dto.CustomerDTO;
+import com.ecommerce.payment.dto.CustomerDetailDTO;
+import com.ecommerce.payment.dto.OrderDTO;
+import com.ecommerce.payment.dto.ProductdDTO;
+import com.ecommerce.payment.model.Customer;
+import com.ecommerce.payment.model.Money;
+import com.ecommerce.payment.model.Product;
+import com.ecommerce.payment.repository.CustomerRepository;
+import com.ecommerce.payment.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class CustomerServiceTests {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Test
+    void customerDetailIsServedFromCacheUntilAnOrderIsCreated() throws Exception {
+        UUID id = createCustomer();
+
+        CustomerDetailDTO first = this.customerService.getCustomerDetail(id);
+        double hits = cacheGets("hit");
+        CustomerDetailDTO second = this.customerService.getCustomerDetail(id);
+
+        assertThat(second).isSameAs(first);
+        assertThat(cacheGets("hit")).isEqualTo(hits + 1);
+
+        OrderDTO order = new OrderDTO();
+        order.setDescription("Evicting order");
+        order.setCustomerId(id);
+        this.orderService.createOrder(order);
+
+        assertThat(this.customerService.getCustomerDetail(id).orders()).hasSize(1);
+    }
+
+    @Test
+    void concurrentMissesForTheSameCustomerShareOneLoad() throws Exception {
+        UUID id = createCustomer();
+        double misses = cacheGets("miss");
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Callable<CustomerDetailDTO> load = () -> this.customerService.getCustomerDetail(id);
+            var results = executor.invokeAll(IntStream.range(0, 32).mapToObj(i -> load).toList());
+            CustomerDetailDTO expected = results.get(0).get();
+            for (Future<CustomerDetailDTO> result : results) {
+                assertThat(result.get()).isSameAs(expected);
+            }
+        }
+        assertThat(cacheGets("miss")).isEqualTo(misses + 1);
+    }
+
+    @Test
+    void streamedCustomersMatchTheMappedTree() throws Exception {
+        UUID withOrders = createCustomer();
+        UUID withoutOrders = createCustomer();
+        this.orderService.createOrders(List.of(order(withOrders, 2), order(withOrders, 0), order(withOrders, 1)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = this.jsonMapper.createGenerator(out)) {
+            this.customerService.writeCustomers(0, 10_000, generator);
+        }
+        List<CustomerDTO> streamed = Arrays.asList(this.jsonMapper.readValue(out.toByteArray(), CustomerDTO[].class));
+
+        for (UUID id : List.of(withOrders, withoutOrders)) {
+            CustomerDTO customer = streamed.stream().filter(c -> c.getId().equals(id)).findFirst().orElseThrow();
+            assertThat(customer).usingRecursiveComparison().ignoringCollectionOrder()
+                    .isEqualTo(this.customerService.getCustomerById(id.toString()));
+        }
+        assertThat(streamed).extracting(CustomerDTO::getId).doesNotHaveDuplicates();
+    }
+
+    private OrderDTO order(UUID customerId, int products) {
+        OrderDTO order = new OrderDTO();
+        order.setDescription("Streamed order");
+        order.setCustomerId(customerId);
+        for (int i = 0; i < products; i++) {
+            Product catalog = new Product();
+            catalog.setName("Streamed product " + i);
+            catalog.setPrice(Money.parse("2.25"));
+            catalog.setStockQuantity(3);
+            catalog.setPercentageDiscount(10);
+            ProductdDTO product = new ProductdDTO();
+            product.setId(this.productRepository.save(catalog).getId());
+            order.getProducts().add(product);
+        }
+        return order;
+    }
+
+    private UUID createCustomer() {
+        Customer customer = new Customer();
+        customer.setName("Cached customer");
+        return this.customerRepository.save(customer).getId();
+    }
+
+    private double cacheGets(String result) {
+        return this.meterRegistry.get("cache.gets")
+                .tag("cache", CacheConfig.CUSTOMER_DETAILS)
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+}
@@ -0,0 +1,120 @@
+package com.ecommerce.payment.services;
+
+import com.ecommerce.payment.dto.OrderDTO;
+import com.ecommerce.payment.dto.ProductdDTO;
+import com.ecommerce.payment.model.Customer;
+import com.ecommerce.payment.model.Money;
+import com.ecommerce.payment.model.Product;
+import com.ecommerce.payment.repository.CustomerRepository;
+import com.ecommerce.payment.repository.OrderRepository;
+import com.ecommerce.payment.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ExportServiceTests {
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void customersAreExportedAsOneJsonObjectPerLine() throws Exception {
+        UUID id = createCustomer("Ndjson customer");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = this.exportService.exportCustomers(ExportFormat.NDJSON, out);
+
+        String export = out.toString(StandardCharsets.UTF_8);
+        List<String> lines = export.lines().toList();
+        assertThat(export).endsWith("\n");
+        assertThat(lines).hasSize((int) count);
+        assertThat(count).isEqualTo(this.customerRepository.count());
+        JsonNode customer = lines.stream().map(this.jsonMapper::readTree)
+                .filter(node -> node.get("id").asString().equals(id.toString()))
+                .findFirst().orElseThrow();
+        assertThat(customer.get("name").asString()).isEqualTo("Ndjson customer");
+        assertThat(customer.get("email").isNull()).isTrue();
+    }
+
+    @Test
+    void streamedResponsesGetTheStreamingTimeout() throws Exception {
+        long timeout = Duration.ofHours(1).toMillis();
+
+        for (String uri : List.of("/exports/customers", "/exports/orders?format=csv", "/customers?stream=true")) {
+            MvcResult result = this.mockMvc.perform(get(uri)).andExpect(request().asyncStarted()).andReturn();
+            assertThat(result.getRequest().getAsyncContext().getTimeout()).as(uri).isEqualTo(timeout);
+            this.mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+        }
+        this.mockMvc.perform(get("/exports/customers").param("format", "xml")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void ordersAreExportedAsCsvWithQuoting() throws Exception {
+        UUID customerId = createCustomer("Csv customer");
+        OrderDTO order = new OrderDTO();
+        order.setDescription("Boxes, \"large\"");
+        order.setCustomerId(customerId);
+        Product box = new Product();
+        box.setName("Box");
+        box.setPrice(Money.parse("50.00"));
+        box.setPercentageDiscount(15);
+        box.setStockQuantity(1);
+        ProductdDTO product = new ProductdDTO();
+        product.setId(this.productRepository.save(box).getId());
+        order.getProducts().add(product);
+        UUID orderId = this.orderService.createOrder(order).getId();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = this.exportService.exportOrders(ExportFormat.CSV, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(count).isEqualTo(this.orderRepository.count());
+        assertThat(lines).hasSize((int) count + 1);
+        assertThat(lines.get(0)).isEqualTo("id,customerId,description,amount,createdAt");
+        assertThat(lines).anySatisfy(line -> assertThat(line)
+                .startsWith(orderId + "," + customerId + ",\"Boxes, \"\"large\"\"\",42.50,"));
+    }
+
+    private UUID createCustomer(String name) {
+        Customer customer = new Customer();
+        customer.setName(name);
+        return this.customerRepository.save(customer).getId();
+    }
+}
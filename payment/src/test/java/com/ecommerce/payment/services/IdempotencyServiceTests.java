@@ -0,0 +1,137 @@
+package com.ecommerce.payment.services;
+
+import com.ecommerce.payment.dto.OrderDTO;
+import com.ecommerce.payment.error.IdempotencyKeyConflict;
+import com.ecommerce.payment.model.Customer;
+import com.ecommerce.payment.model.Money;
+import com.ecommerce.payment.model.IdempotencyRecord;
+import com.ecommerce.payment.repository.BillingOutboxRepository;
+import com.ecommerce.payment.repository.CustomerRepository;
+import com.ecommerce.payment.repository.IdempotencyRecordRepository;
+import com.ecommerce.payment.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+@SpringBootTest
+class IdempotencyServiceTests {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private BillingOutboxRepository outboxRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Test
+    void retriesWithTheSameKeyReplayTheFirstOrder() throws Exception {
+        OrderDTO order = order(createCustomer(), "Retried order");
+        String key = UUID.randomUUID().toString();
+        long orders = this.orderRepository.count();
+        long outbox = this.outboxRepository.count();
+
+        IdempotencyService.Outcome first = this.idempotencyService.createOrder(key, order);
+        IdempotencyService.Outcome retry = this.idempotencyService.createOrder(key, order);
+
+        assertThat(first.replayed()).isFalse();
+        assertThat(retry.replayed()).isTrue();
+        assertThat(retry.order().getId()).isEqualTo(first.order().getId());
+        assertThat(this.orderRepository.count()).isEqualTo(orders + 1);
+        assertThat(this.outboxRepository.count()).isEqualTo(outbox + 1);
+        assertThat(this.recordRepository.findById(key)).get()
+                .extracting(IdempotencyRecord::getOrderId).isEqualTo(first.order().getId());
+    }
+
+    @Test
+    void concurrentDuplicatesWaitForTheOriginal() throws Exception {
+        OrderDTO order = order(createCustomer(), "Concurrent order");
+        String key = UUID.randomUUID().toString();
+        long orders = this.orderRepository.count();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Callable<IdempotencyService.Outcome> submit = () -> this.idempotencyService.createOrder(key, order);
+            List<Future<IdempotencyService.Outcome>> outcomes = executor.invokeAll(
+                    IntStream.range(0, 16).mapToObj(i -> submit).toList());
+            UUID id = outcomes.get(0).get().order().getId();
+            int created = 0;
+            for (Future<IdempotencyService.Outcome> outcome : outcomes) {
+                assertThat(outcome.get().order().getId()).isEqualTo(id);
+                created += outcome.get().replayed() ? 0 : 1;
+            }
+            assertThat(created).isEqualTo(1);
+        }
+        assertThat(this.orderRepository.count()).isEqualTo(orders + 1);
+    }
+
+    @Test
+    void keysRecordedByAnotherInstanceAreReplayedFromTheTable() throws Exception {
+        OrderDTO order = order(createCustomer(), "Recorded elsewhere");
+        OrderDTO response = order(order.getCustomerId(), "Recorded elsewhere");
+        response.setId(UUID.randomUUID());
+        String key = UUID.randomUUID().toString();
+        this.recordRepository.save(new IdempotencyRecord(key, hash(order), response.getId(),
+                this.jsonMapper.writeValueAsString(response)));
+        long orders = this.orderRepository.count();
+
+        IdempotencyService.Outcome outcome = this.idempotencyService.createOrder(key, order);
+
+        assertThat(outcome.replayed()).isTrue();
+        assertThat(outcome.order().getId()).isEqualTo(response.getId());
+        assertThat(this.orderRepository.count()).isEqualTo(orders);
+    }
+
+    @Test
+    void keyReusedForAnotherOrderIsRejected() throws Exception {
+        UUID customerId = createCustomer();
+        String key = UUID.randomUUID().toString();
+        this.idempotencyService.createOrder(key, order(customerId, "First order"));
+
+        assertThatExceptionOfType(IdempotencyKeyConflict.class)
+                .isThrownBy(() -> this.idempotencyService.createOrder(key, order(customerId, "Second order")))
+                .satisfies(conflict -> assertThat(conflict.isReused()).isTrue());
+    }
+
+    private String hash(OrderDTO order) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest(this.jsonMapper.writeValueAsBytes(order)));
+    }
+
+    private static OrderDTO order(UUID customerId, String description) {
+        OrderDTO order = new OrderDTO();
+        order.setDescription(description);
+        order.setAmount(Money.parse("20"));
+        order.setCustomerId(customerId);
+        return order;
+    }
+
+    private UUID createCustomer() {
+        Customer customer = new Customer();
+        customer.setName("Idempotent customer");
+        return this.customerRepository.save(customer).getId();
+    }
+}
@@ -0,0 +1,140 @@
+package com.ecommerce.payment.services;
+
+import com.ecommerce.payment.config.CacheConfig;
+import com.ecommerce.payment.dto.OrderDTO;
+import com.ecommerce.payment.dto.ProductdDTO;
+import com.ecommerce.payment.model.Customer;
+import com.ecommerce.payment.model.Money;
+import com.ecommerce.payment.model.Product;
+import com.ecommerce.payment.repository.BillingOutboxRepository;
+import com.ecommerce.payment.repository.CustomerRepository;
+import com.ecommerce.payment.repository.OrderRepository;
+import com.ecommerce.payment.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+@SpringBootTest
+class OrderServiceTests {
+
+    private static final int ORDERS = 200;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private BillingOutboxRepository outboxRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void batchOfOrdersIsInsertedWithJdbcBatches() {
+        UUID customerId = createCustomer();
+        UUID productId = createProduct(ORDERS);
+        List<OrderDTO> batch = IntStream.range(0, ORDERS).mapToObj(i -> order(customerId, productId, i)).toList();
+        long orders = this.orderRepository.count();
+        long outbox = this.outboxRepository.count();
+        long timed = this.meterRegistry.get(OrderService.CREATE_METRIC).tag("mode", "batch").timer().count();
+
+        Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<OrderDTO> created = this.orderService.createOrders(batch);
+
+        // 600 rows (order, product, outbox) sent as one batch per table per chunk of 50, plus the
+        // catalog lookup and the stock update
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3 * ORDERS / 50 + 2);
+        assertThat(created).hasSize(ORDERS);
+        assertThat(created).extracting(OrderDTO::getDescription)
+                .containsExactlyElementsOf(batch.stream().map(OrderDTO::getDescription).toList());
+        assertThat(created).allSatisfy(order -> assertThat(order.getId()).isNotNull());
+        assertThat(this.orderRepository.count()).isEqualTo(orders + ORDERS);
+        assertThat(this.outboxRepository.count()).isEqualTo(outbox + ORDERS);
+        assertThat(this.meterRegistry.get(OrderService.CREATE_METRIC).tag("mode", "batch").timer().count())
+                .isEqualTo(timed + 1);
+    }
+
+    @Test
+    void batchIsRejectedWhenAnyOrderHasNoCustomer() {
+        UUID productId = createProduct(2);
+        List<OrderDTO> batch = new ArrayList<>(List.of(order(createCustomer(), productId, 0), order(null, productId, 1)));
+        long orders = this.orderRepository.count();
+
+        assertThatIllegalArgumentException().isThrownBy(() -> this.orderService.createOrders(batch));
+        assertThat(this.orderRepository.count()).isEqualTo(orders);
+    }
+
+    @Test
+    void customerDetailsAreEvictedWhenTheCallersTransactionCommits() {
+        UUID customerId = createCustomer();
+        UUID productId = createProduct(1);
+        Cache customerDetails = ((TransactionAwareCacheDecorator) this.cacheManager
+                .getCache(CacheConfig.CUSTOMER_DETAILS)).getTargetCache();
+        customerDetails.put(customerId, "stale");
+
+        this.transactionTemplate.executeWithoutResult(status -> {
+            this.orderService.createOrder(order(customerId, productId, 0));
+            assertThat(customerDetails.get(customerId)).isNotNull();
+        });
+
+        assertThat(customerDetails.get(customerId)).isNull();
+    }
+
+    private UUID createCustomer() {
+        Customer customer = new Customer();
+        customer.setName("Batch customer");
+        return this.customerRepository.save(customer).getId();
+    }
+
+    private UUID createProduct(int stock) {
+        Product product = new Product();
+        product.setName("Batch product");
+        product.setPrice(Money.parse("10"));
+        product.setStockQuantity(stock);
+        return this.productRepository.save(product).getId();
+    }
+
+    private static OrderDTO order(UUID customerId, UUID productId, int index) {
+        ProductdDTO product = new ProductdDTO();
+        product.setId(productId);
+        OrderDTO order = new OrderDTO();
+        order.setDescription("Batch order " + index);
+        order.setCustomerId(customerId);
+        order.setProducts(List.of(product));
+        return order;
+    }
+}
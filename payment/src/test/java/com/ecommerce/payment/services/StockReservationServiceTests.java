@@ -0,0 +1,219 @@
+package com.ecommerce.payment.services;
+
+import com.ecommerce.payment.dto.OrderDTO;
+import com.ecommerce.payment.dto.ProductdDTO;
+import com.ecommerce.payment.error.InsufficientStock;
+import com.ecommerce.payment.model.Customer;
+import com.ecommerce.payment.model.Money;
+import com.ecommerce.payment.model.Product;
+import com.ecommerce.payment.repository.CustomerRepository;
+import com.ecommerce.payment.repository.OrderRepository;
+import com.ecommerce.payment.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class StockReservationServiceTests {
+
+    private static final int STOCK = 500;
+
+    private static final int ORDERS = 2_000;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void parallelOrdersNeverOversellAProduct() throws Exception {
+        UUID productId = createProduct(STOCK);
+
+        assertThat(fireOrders(createCustomer(), productId, ORDERS)).isEqualTo(STOCK);
+        assertThat(this.productRepository.findCatalogStock(productId)).contains(0);
+    }
+
+    @Test
+    void parallelOrdersNeverOversellAHotProduct() throws Exception {
+        UUID productId = createProduct(STOCK);
+        this.stockLedger.track(productId);
+        try {
+            assertThat(fireOrders(createCustomer(), productId, ORDERS)).isEqualTo(STOCK);
+            assertThat(this.productRepository.findCatalogStock(productId)).contains(0);
+        } finally {
+            this.stockLedger.untrack(productId);
+        }
+    }
+
+    @Test
+    void unsoldLeasedStockIsReturned() throws Exception {
+        UUID productId = createProduct(STOCK);
+        this.stockLedger.track(productId);
+
+        assertThat(fireOrders(createCustomer(), productId, 120)).isEqualTo(120);
+        this.stockLedger.untrack(productId);
+
+        assertThat(this.productRepository.findCatalogStock(productId)).contains(STOCK - 120);
+    }
+
+    @Test
+    void stockSpreadOverStripesIsReservedAtOnce() {
+        UUID productId = createProduct(10);
+        this.stockLedger.track(productId);
+        try {
+            for (int i = 0; i < 10; i++) {
+                assertThat(this.stockLedger.reserve(productId, 1)).isTrue();
+            }
+            // Put back one unit at a time, spreading them over random stripes
+            for (int i = 0; i < 10; i++) {
+                this.stockLedger.release(productId, 1);
+            }
+            assertThat(this.productRepository.findCatalogStock(productId)).contains(0);
+
+            assertThat(this.stockLedger.reserve(productId, 10)).isTrue();
+            assertThat(this.stockLedger.reserve(productId, 1)).isFalse();
+        } finally {
+            this.stockLedger.untrack(productId);
+        }
+        assertThat(this.productRepository.findCatalogStock(productId)).contains(0);
+    }
+
+    @Test
+    void hotProductsAreNotOrderedInsideAnExistingTransaction() {
+        UUID customerId = createCustomer();
+        UUID productId = createProduct(STOCK);
+        this.stockLedger.track(productId);
+        try {
+            assertThatThrownBy(() -> this.transactionTemplate.execute(
+                    status -> this.orderService.createOrder(order(customerId, productId))))
+                    .isInstanceOf(IllegalStateException.class);
+        } finally {
+            this.stockLedger.untrack(productId);
+        }
+        assertThat(this.productRepository.findCatalogStock(productId)).contains(STOCK);
+    }
+
+    @Test
+    void orderLinesAreCopiedFromTheCatalog() {
+        UUID productId = createProduct(STOCK);
+        OrderDTO order = order(createCustomer(), productId);
+        order.getProducts().getFirst().setPrice(Money.parse("0.01"));
+
+        OrderDTO created = this.orderService.createOrder(order);
+
+        ProductdDTO line = created.getProducts().getFirst();
+        assertThat(line.getId()).isNotEqualTo(productId);
+        assertThat(line.getName()).isEqualTo("Hot product");
+        assertThat(line.getPrice()).isEqualTo(Money.parse("20.00"));
+        assertThat(created.getAmount()).isEqualTo(Money.parse("18.00"));
+        assertThat(this.productRepository.findCatalogStock(productId)).contains(STOCK - 1);
+        assertThat(this.productRepository.findById(productId).orElseThrow().getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void linesWithoutACatalogProductAreRejected() throws Exception {
+        UUID customerId = createCustomer();
+        long orders = this.orderRepository.count();
+        String line = "{\"name\": \"Own product\", \"price\": 0.01, \"percentageDiscount\": 100}";
+
+        this.mockMvc.perform(post("/orders").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerId\": \"" + customerId + "\", \"products\": [" + line + "]}"))
+                .andExpect(status().isBadRequest());
+        this.mockMvc.perform(post("/orders:batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"customerId\": \"" + customerId + "\", \"products\": [" + line + "]}]"))
+                .andExpect(status().isBadRequest());
+        assertThat(this.orderRepository.count()).isEqualTo(orders);
+    }
+
+    @Test
+    void batchIsRejectedWhenStockDoesNotCoverIt() {
+        UUID customerId = createCustomer();
+        UUID productId = createProduct(2);
+
+        assertThatThrownBy(() -> this.orderService.createOrders(List.of(
+                order(customerId, productId), order(customerId, productId), order(customerId, productId))))
+                .isInstanceOf(InsufficientStock.class);
+        assertThat(this.productRepository.findCatalogStock(productId)).contains(2);
+    }
+
+    /**
+     * Submits one-unit orders of a product all at once and returns how many succeeded.
+     */
+    private int fireOrders(UUID customerId, UUID productId, int orders) throws InterruptedException {
+        List<Future<OrderDTO>> results = new ArrayList<>(orders);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < orders; i++) {
+                results.add(executor.submit(() -> this.orderService.createOrder(order(customerId, productId))));
+            }
+        }
+        int created = 0;
+        for (Future<OrderDTO> result : results) {
+            try {
+                result.get();
+                created++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(InsufficientStock.class);
+            }
+        }
+        return created;
+    }
+
+    private static OrderDTO order(UUID customerId, UUID productId) {
+        ProductdDTO line = new ProductdDTO();
+        line.setId(productId);
+        OrderDTO order = new OrderDTO();
+        order.setDescription("Stock order");
+        order.setCustomerId(customerId);
+        order.getProducts().add(line);
+        return order;
+    }
+
+    private UUID createProduct(int stock) {
+        Product product = new Product();
+        product.setName("Hot product");
+        product.setPrice(Money.parse("20.00"));
+        product.setPercentageDiscount(10);
+        product.setStockQuantity(stock);
+        return this.productRepository.save(product).getId();
+    }
+
+    private UUID createCustomer() {
+        Customer customer = new Customer();
+        customer.setName("Stock customer");
+        return this.customerRepository.save(customer).getId();
+    }
+}